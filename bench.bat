@@ -0,0 +1,4 @@
+javac benchmarks/Benchmarks.java
+jar cvfm Benchmarks.jar benchmarks/manifest.txt .
+del /f /s /q *.class
+java -jar Benchmarks.jar > bench_output.txt
\ No newline at end of file
@@ -0,0 +1,40 @@
+package benchmarks;
+
+/**
+ * Benchmark runner. Results are printed to standard output as JSON 
+ * so that runs of different versions can be compared, progress is 
+ * printed to standard error.
+ * 
+ * Usage: Benchmarks [suite...], where suite is one of: path, sort, render.
+ * All suites are run if none is given.
+ */
+public class Benchmarks {
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Harness harness = new Harness(3, 5, 200);
+
+        boolean all = args.length == 0;
+        if (all || Benchmarks.contains(args, "path")) {
+            PathBenchmarks.run(harness);
+        }
+        if (all || Benchmarks.contains(args, "sort")) {
+            SortBenchmarks.run(harness);
+        }
+        if (all || Benchmarks.contains(args, "render")) {
+            RenderBenchmarks.run(harness);
+        }
+
+        System.out.println(harness.toJson());
+        System.err.println("sink: " + harness.getSink());
+    }
+
+    private static boolean contains(String[] args, String suite) {
+        for (String arg : args) {
+            if (arg.equals(suite)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
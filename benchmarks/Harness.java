@@ -0,0 +1,169 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+
+/**
+ * Harness measures throughput and allocation of operations and collects 
+ * the results as JSON. Each benchmark is warmed up first so that the JIT 
+ * has a chance to compile it, then it is measured in several fixed time 
+ * iterations.
+ */
+public class Harness {
+    private static final long NANOS_IN_MILLI = 1_000_000;
+    private static final int DEFAULT_BATCH = 64;
+
+    private final ArrayList<String> results;
+    private final com.sun.management.ThreadMXBean threads;
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+
+    private double sink;
+
+    /**
+     * Creates new harness.
+     * @param warmupIterations - iterations thrown away before measuring.
+     * @param iterations - measured iterations.
+     * @param iterationMillis - duration of one iteration.
+     */
+    public Harness(int warmupIterations, int iterations, long iterationMillis) {
+        this.results = new ArrayList<>();
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * NANOS_IN_MILLI;
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            this.threads = (com.sun.management.ThreadMXBean)bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+    }
+
+    /**
+     * Measures the operation and records the result.
+     * @param name - name of the benchmark.
+     * @param params - JSON object describing parameters of the benchmark.
+     * @param operation - the measured operation.
+     */
+    public void measure(String name, String params, IOperation operation) {
+        this.measure(name, params, operation, Harness.DEFAULT_BATCH);
+    }
+
+    /**
+     * Measures the operation and records the result.
+     * @param name - name of the benchmark.
+     * @param params - JSON object describing parameters of the benchmark.
+     * @param operation - the measured operation.
+     * @param batch - operations run between time checks, slow operations 
+     * need small batch or iterations take way longer then they should.
+     */
+    public void measure(String name, String params, IOperation operation, int batch) {
+        for (int i = 0; i < this.warmupIterations; i++) {
+            this.iteration(operation, batch);
+        }
+
+        double[] throughput = new double[this.iterations];
+        long totalOps = 0;
+        long totalNanos = 0;
+        long allocatedBefore = this.allocatedBytes();
+        for (int i = 0; i < this.iterations; i++) {
+            long start = System.nanoTime();
+            long ops = this.iteration(operation, batch);
+            long elapsed = System.nanoTime() - start;
+            throughput[i] = ops / (elapsed / 1e9);
+            totalOps += ops;
+            totalNanos += elapsed;
+        }
+        long allocated = this.allocatedBytes() - allocatedBefore;
+
+        double mean = 0;
+        for (double t : throughput) {
+            mean += t;
+        }
+        mean /= throughput.length;
+
+        double variance = 0;
+        for (double t : throughput) {
+            variance += (t - mean) * (t - mean);
+        }
+        double error = throughput.length > 1 
+            ? Math.sqrt(variance / (throughput.length - 1)) 
+            : 0;
+
+        double bytesPerOp = this.threads == null ? -1 : allocated / (double)totalOps;
+        double allocationRate = this.threads == null ? -1 : allocated / (totalNanos / 1e9);
+
+        String result = String.format(
+            java.util.Locale.ROOT,
+            "{\"benchmark\":\"%s\",\"params\":%s,\"iterations\":%d,\"ops\":%d," + 
+            "\"opsPerSecond\":%.3f,\"opsPerSecondError\":%.3f," +
+            "\"bytesPerOp\":%.3f,\"allocationRate\":%.3f}",
+            name, params, this.iterations, totalOps, mean, error, bytesPerOp, allocationRate
+        );
+        this.results.add(result);
+        System.err.println(result);
+    }
+
+    /**
+     * Returns all recorded results as JSON document.
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"java\":\"").append(System.getProperty("java.version"));
+        builder.append("\",\"results\":[\n");
+        for (int i = 0; i < this.results.size(); i++) {
+            builder.append("  ").append(this.results.get(i));
+            if (i != this.results.size() - 1) {
+                builder.append(',');
+            }
+            builder.append('\n');
+        }
+        builder.append("]}");
+        return builder.toString();
+    }
+
+    /**
+     * Returns the accumulated results of operations, printing it makes 
+     * sure JIT can not throw the measured work away.
+     */
+    public double getSink() {
+        return this.sink;
+    }
+
+    /**
+     * Runs the operation repeatedly until iteration time runs out.
+     * @return - amount of operations performed.
+     */
+    private long iteration(IOperation operation, int batch) {
+        long deadline = System.nanoTime() + this.iterationNanos;
+        long ops = 0;
+        double localSink = 0;
+        // checking time every operation would dominate cheap operations
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < batch; i++) {
+                localSink += operation.run();
+            }
+            ops += batch;
+        }
+        this.sink += localSink;
+        return ops;
+    }
+
+    private long allocatedBytes() {
+        if (this.threads == null) {
+            return 0;
+        }
+        return this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Measured operation, returned value is consumed by harness.
+     */
+    public interface IOperation {
+        double run();
+    }
+}
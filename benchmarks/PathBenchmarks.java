@@ -0,0 +1,85 @@
+package benchmarks;
+
+import com.github.jakubDoka.directions.game.Difficulty;
+import com.github.jakubDoka.directions.game.Path;
+import com.github.jakubDoka.directions.game.Player;
+import com.github.jakubDoka.directions.game.StepEngine;
+import com.github.jakubDoka.directions.ui.Camera;
+import com.github.jakubDoka.directions.ui.Vec;
+
+/**
+ * Benchmarks of path generation. Every difficulty is measured together 
+ * with synthetic long paths, paths are seeded so runs can be compared.
+ */
+public class PathBenchmarks {
+    private static final long SEED = 42;
+    private static final int[] SYNTHETIC_LENGTHS = {1_000, 10_000, 100_000};
+    private static final int SYNTHETIC_SIZE = 4;
+
+    /**
+     * Runs all path benchmarks.
+     */
+    public static void run(Harness harness) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            PathBenchmarks.runAll(
+                harness, 
+                difficulty.name(), 
+                difficulty.getPathLength(), 
+                difficulty.getPathSize()
+            );
+        }
+
+        for (int length : SYNTHETIC_LENGTHS) {
+            PathBenchmarks.runAll(harness, "SYNTHETIC", length, SYNTHETIC_SIZE);
+        }
+    }
+
+    private static void runAll(Harness harness, String profile, int length, int size) {
+        for (StepEngine engine : StepEngine.values()) {
+            String params = String.format(
+                "{\"profile\":\"%s\",\"length\":%d,\"size\":%d,\"engine\":\"%s\",\"seed\":%d}",
+                profile, length, size, engine, SEED
+            );
+
+            // expand is what main menu does every frame
+            Path expanded = PathBenchmarks.create(length, size, engine);
+            harness.measure("Path.expand", params, () -> {
+                expanded.expand();
+                return expanded.getLength();
+            });
+
+            // move is what happens on every correct key press
+            Path moved = PathBenchmarks.create(length, size, engine);
+            harness.measure("Path.move", params, () -> {
+                return moved.move(moved.getCorrectDirection()).getX();
+            });
+        }
+
+        // camera follow replaced Path.shift, it does not depend on engine
+        String params = String.format(
+            "{\"profile\":\"%s\",\"length\":%d,\"size\":%d}",
+            profile, length, size
+        );
+        Player player = new Player(size, 0, 0);
+        Camera camera = new Camera();
+        Vec shift = new Vec(size * 6, size * 6);
+        Vec offset = new Vec();
+        harness.measure("Camera.follow", params, () -> {
+            shift.set(-shift.getX(), -shift.getY());
+            player.move(shift, camera);
+            return camera.getOffset(offset).getX();
+        });
+    }
+
+    /**
+     * Creates path in the state GamePlay starts with.
+     */
+    private static Path create(int length, int size, StepEngine engine) {
+        Path path = new Path(length, size, 0, 0, engine);
+        path.setSeed(SEED);
+        for (int i = 0; i < 3; i++) {
+            path.expand();
+        }
+        return path;
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import com.github.jakubDoka.directions.game.Difficulty;
+import com.github.jakubDoka.directions.game.Directions;
+import com.github.jakubDoka.directions.game.Fonts;
+import com.github.jakubDoka.directions.game.GamePlay;
+import com.github.jakubDoka.directions.game.MainMenu;
+import com.github.jakubDoka.directions.game.ScoreScreen;
+import com.github.jakubDoka.directions.game.Settings;
+import com.github.jakubDoka.directions.ui.Canvas;
+import com.github.jakubDoka.directions.ui.CanvasObject;
+import com.github.jakubDoka.directions.ui.GlyphAtlas;
+import com.github.jakubDoka.directions.ui.ImageTarget;
+import com.github.jakubDoka.directions.ui.RenderList;
+
+/**
+ * Benchmarks of drawing every screen. Screens are drawn to an image on
+ * the benchmark thread, so no display is needed. Whole screen is redrawn
+ * every operation, which is the worst case of damage tracking.
+ * 
+ * Score text is also measured alone, drawn trough text pipeline and
+ * from glyph atlas.
+ * 
+ * Game play path is not seeded, it differs slightly between runs.
+ */
+public class RenderBenchmarks {
+    // frames take milliseconds, default batch would make iterations too long
+    private static final int BATCH = 4;
+    private static final int[] SCORES = {0, 1_234, 987_654_321};
+
+    /**
+     * Runs all render benchmarks.
+     */
+    public static void run(Harness harness) {
+        MainMenu mainMenu = new MainMenu();
+        RenderBenchmarks.runScreen(harness, "MAIN_MENU", mainMenu);
+
+        Settings settings = new Settings();
+        settings.setVisible(true);
+        RenderBenchmarks.runScreen(harness, "SETTINGS", settings);
+
+        ScoreScreen scoreScreen = new ScoreScreen();
+        scoreScreen.start(1234, 5678);
+        RenderBenchmarks.runScreen(harness, "SCORE_SCREEN", scoreScreen);
+
+        for (Difficulty difficulty : Difficulty.values()) {
+            GamePlay gamePlay = new GamePlay();
+            gamePlay.start(false, difficulty, Color.BLUE, Color.BLACK);
+            RenderBenchmarks.runScreen(harness, "PLAYING_" + difficulty.name(), gamePlay);
+        }
+
+        for (int score : SCORES) {
+            RenderBenchmarks.runText(harness, String.valueOf(score), false);
+            RenderBenchmarks.runText(harness, String.valueOf(score), true);
+        }
+    }
+
+    private static void runText(Harness harness, String text, boolean isAtlas) {
+        String params = String.format("{\"text\":\"%s\",\"atlas\":%b}", text, isAtlas);
+
+        Rectangle bounds = new Rectangle(0, 0, 400, 50);
+        BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        RenderList list = new RenderList();
+        // not registered, so it does not change how screens are drawn
+        GlyphAtlas atlas = new GlyphAtlas(Fonts.BIG);
+        harness.measure("Text.draw", params, () -> {
+            list.clear(bounds);
+            list.setFont(Fonts.BIG);
+            list.setColor(Color.BLACK);
+            if (isAtlas) {
+                list.drawGlyphs(atlas, text, 10, 40);
+            } else {
+                list.drawString(text, 10, 40);
+            }
+            list.replay(g);
+            return image.getRGB(20, 30);
+        });
+    }
+
+    private static void runScreen(Harness harness, String screen, CanvasObject object) {
+        String params = String.format(
+            "{\"screen\":\"%s\",\"width\":%d,\"height\":%d}",
+            screen, Directions.WIDTH, Directions.HEIGHT
+        );
+
+        ImageTarget target = new ImageTarget(Directions.WIDTH, Directions.HEIGHT);
+        Canvas canvas = new Canvas(target, false);
+        canvas.addObject(object);
+        harness.measure("Canvas.redraw", params, () -> {
+            canvas.invalidateAll();
+            canvas.redraw();
+            return target.getImage().getRGB(Directions.WIDTH / 2, Directions.HEIGHT / 2);
+        }, BATCH);
+    }
+}
@@ -0,0 +1,239 @@
+package benchmarks;
+
+import com.github.jakubDoka.directions.game.Difficulty;
+import com.github.jakubDoka.directions.game.Path;
+import com.github.jakubDoka.directions.game.StepEngine;
+import com.github.jakubDoka.directions.game.Util;
+import com.github.jakubDoka.directions.ui.Vec;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmarks of sorting. Every operation copies the input to working
+ * array first, the copy is part of the measured time but it is the same
+ * for all sorts so they can still be compared.
+ * 
+ * Util sorts are compared with Arrays.sort and Arrays.parallelSort on 
+ * generated shapes of input, both on boxed and primitive arrays. Allocation 
+ * is measured only on the benchmark thread, so bytes per operation of the
+ * parallel sorts miss what pool threads allocate.
+ */
+public class SortBenchmarks {
+    private static final long SEED = 42;
+    private static final int[] SNAPSHOT_LENGTHS = {10_000, 100_000};
+    private static final int SNAPSHOT_SIZE = 4;
+    private static final int[] SHAPE_LENGTHS = {10, 1_000, 100_000, 10_000_000};
+    private static final String[] SHAPES = {"random", "sorted", "reversed", "nearlySorted", "duplicates"};
+    // keeps batches of long sorts around the same total length as short ones
+    private static final int BATCH_ELEMENTS = 1_000_000;
+
+    /**
+     * Runs all sort benchmarks.
+     */
+    public static void run(Harness harness) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            SortBenchmarks.runSnapshots(
+                harness,
+                difficulty.name(),
+                difficulty.getPathLength(),
+                difficulty.getPathSize()
+            );
+        }
+
+        for (int length : SNAPSHOT_LENGTHS) {
+            SortBenchmarks.runSnapshots(harness, "SYNTHETIC", length, SNAPSHOT_SIZE);
+        }
+
+        for (int length : SHAPE_LENGTHS) {
+            for (String shape : SHAPES) {
+                SortBenchmarks.runShape(harness, shape, length);
+            }
+        }
+    }
+
+    /**
+     * Measures Util sorts against the ones from standard library. 
+     */
+    private static void runShape(Harness harness, String shape, int length) {
+        String params = String.format(
+            "{\"shape\":\"%s\",\"length\":%d,\"seed\":%d}",
+            shape, length, SEED
+        );
+        int batch = Math.max(1, Math.min(64, BATCH_ELEMENTS / length));
+
+        double[] input = SortBenchmarks.generate(shape, length);
+        double[] work = new double[length];
+        Util.Sorter sorter = new Util.Sorter();
+
+        harness.measure("Util.sort(double[])", params, () -> {
+            System.arraycopy(input, 0, work, 0, length);
+            Util.sort(work);
+            return work[0];
+        }, batch);
+
+        harness.measure("Util.Sorter.sort(double[])", params, () -> {
+            System.arraycopy(input, 0, work, 0, length);
+            sorter.sort(work, length);
+            return work[0];
+        }, batch);
+
+        harness.measure("Util.Sorter.sortAdaptive(double[])", params, () -> {
+            System.arraycopy(input, 0, work, 0, length);
+            sorter.sortAdaptive(work, length);
+            return work[0];
+        }, batch);
+
+        harness.measure("Arrays.sort(double[])", params, () -> {
+            System.arraycopy(input, 0, work, 0, length);
+            Arrays.sort(work);
+            return work[0];
+        }, batch);
+
+        harness.measure("Arrays.parallelSort(double[])", params, () -> {
+            System.arraycopy(input, 0, work, 0, length);
+            Arrays.parallelSort(work);
+            return work[0];
+        }, batch);
+
+        Double[] boxedInput = new Double[length];
+        for (int i = 0; i < length; i++) {
+            boxedInput[i] = input[i];
+        }
+        Double[] boxedWork = new Double[length];
+
+        harness.measure("Util.sort(Object[])", params, () -> {
+            System.arraycopy(boxedInput, 0, boxedWork, 0, length);
+            Util.sort(boxedWork, (a, b) -> a > b);
+            return boxedWork[0];
+        }, batch);
+
+        harness.measure("Util.adaptiveSort(Object[])", params, () -> {
+            System.arraycopy(boxedInput, 0, boxedWork, 0, length);
+            Util.adaptiveSort(boxedWork, (a, b) -> a > b);
+            return boxedWork[0];
+        }, batch);
+
+        harness.measure("Util.parallelSort(Object[])", params, () -> {
+            System.arraycopy(boxedInput, 0, boxedWork, 0, length);
+            Util.parallelSort(boxedWork, (a, b) -> a > b);
+            return boxedWork[0];
+        }, batch);
+
+        harness.measure("Arrays.sort(Object[])", params, () -> {
+            System.arraycopy(boxedInput, 0, boxedWork, 0, length);
+            Arrays.sort(boxedWork);
+            return boxedWork[0];
+        }, batch);
+
+        harness.measure("Arrays.parallelSort(Object[])", params, () -> {
+            System.arraycopy(boxedInput, 0, boxedWork, 0, length);
+            Arrays.parallelSort(boxedWork);
+            return boxedWork[0];
+        }, batch);
+    }
+
+    /**
+     * Generates input of given shape. Nearly sorted input has 1% of 
+     * elements swapped, duplicates has only 16 distinct values.
+     */
+    private static double[] generate(String shape, int length) {
+        Random random = new Random(SEED);
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++) {
+            switch (shape) {
+                case "sorted":
+                case "nearlySorted":
+                    result[i] = i;
+                    break;
+                case "reversed":
+                    result[i] = length - i;
+                    break;
+                case "duplicates":
+                    result[i] = random.nextInt(16);
+                    break;
+                default:
+                    result[i] = random.nextDouble();
+            }
+        }
+        if (shape.equals("nearlySorted")) {
+            for (int i = 0; i < length / 100; i++) {
+                int a = random.nextInt(length);
+                int b = random.nextInt(length);
+                double swap = result[a];
+                result[a] = result[b];
+                result[b] = swap;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measures plain and adaptive sort on coordinates of real path. Order
+     * "path" is the order of segments, what the index gets when it is built
+     * at once. Order "step" is sorted snapshot with one coordinate replaced,
+     * what changes between two expands.
+     */
+    private static void runSnapshots(Harness harness, String profile, int length, int size) {
+        double[] path = SortBenchmarks.snapshot(length, size);
+
+        double[] step = path.clone();
+        Util.sort(step);
+        step[length / 2] = step[length - 1] + size * 6;
+
+        SortBenchmarks.runSorters(harness, profile, "path", path, size);
+        SortBenchmarks.runSorters(harness, profile, "step", step, size);
+    }
+
+    private static void runSorters(Harness harness, String profile, String order, double[] input, int quantum) {
+        String params = String.format(
+            "{\"profile\":\"%s\",\"length\":%d,\"order\":\"%s\",\"seed\":%d}",
+            profile, input.length, order, SEED
+        );
+
+        Util.Sorter sorter = new Util.Sorter();
+        double[] work = new double[input.length];
+
+        harness.measure("Util.Sorter.sort", params, () -> {
+            System.arraycopy(input, 0, work, 0, input.length);
+            sorter.sort(work, work.length);
+            return work[0];
+        });
+
+        harness.measure("Util.Sorter.sortAdaptive", params, () -> {
+            System.arraycopy(input, 0, work, 0, input.length);
+            sorter.sortAdaptive(work, work.length);
+            return work[0];
+        });
+
+        // grid engine places segments on multiples of size, so radix sort applies
+        harness.measure("Util.Sorter.sortQuantized", params, () -> {
+            System.arraycopy(input, 0, work, 0, input.length);
+            sorter.sortQuantized(work, work.length, quantum);
+            return work[0];
+        });
+    }
+
+    /**
+     * Returns x coordinates of path that was expanded until all of its
+     * segments were generated, oldest segment first. Grid engine is used
+     * because it does not slow down with the length.
+     */
+    private static double[] snapshot(int length, int size) {
+        Path path = new Path(length, size, 0, 0, StepEngine.GRID);
+        path.setSeed(SEED);
+        for (int i = 0; i < 3; i++) {
+            path.expand();
+        }
+        for (int i = 0; i < length; i++) {
+            path.move(path.getCorrectDirection());
+        }
+
+        double[] result = new double[length];
+        Path.Segment segment = new Path.Segment();
+        Vec pos = new Vec();
+        for (int i = 0; i < length; i++) {
+            result[i] = path.getSegment(i, segment).getPos(pos).getX();
+        }
+        return result;
+    }
+}
@@ -1,2 +1,3 @@
 del Main.jar
-del Tests.jar
\ No newline at end of file
+del Tests.jar
+del Benchmarks.jar
\ No newline at end of file
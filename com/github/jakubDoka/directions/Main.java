@@ -1,8 +1,13 @@
 package com.github.jakubDoka.directions;
+import java.awt.EventQueue;
+
 import com.github.jakubDoka.directions.game.Directions;
 
 public class Main {
-    public static void main(String[] args) {
-        new Thread(new Directions()).start();
+    public static void main(String[] args) throws Exception {
+        // window is created on event thread, game loop and renderer have their own
+        Directions[] directions = new Directions[1];
+        EventQueue.invokeAndWait(() -> directions[0] = new Directions());
+        new Thread(directions[0], "game").start();
     }
 }
@@ -0,0 +1,59 @@
+package com.github.jakubDoka.directions.game;
+
+import java.util.Random;
+
+/**
+ * AxisIndex tracks segment coordinates along one axis and answers where
+ * the path can step perpendicular to its current direction without 
+ * making it ambiguous. Path keeps one index for each axis.
+ */
+public interface AxisIndex {
+    /**
+     * Inserts the value, duplicates are allowed.
+     */
+    void add(double value);
+
+    /**
+     * Removes one occurrence of the value.
+     * @return - false if value is not present.
+     */
+    boolean remove(double value);
+
+    void clear();
+
+    /**
+     * Replaces content of the index with first length values.
+     */
+    default void set(double[] values, int length) {
+        this.clear();
+        for (int i = 0; i < length; i++) {
+            this.add(values[i]);
+        }
+    }
+
+    /**
+     * Returns the step relative to current coordinate. Segments are 
+     * at least size * 2 away from the chosen coordinate.
+     * @param current - coordinate of the newest segment.
+     * @param size - size of the path.
+     * @param random - source of randomness.
+     */
+    double findStep(double current, int size, Random random);
+
+    /**
+     * Returns independent copy of the index.
+     */
+    AxisIndex copy();
+
+    /**
+     * Replaces one occurrence of previous with next. This is what
+     * path does when segment moves.
+     */
+    default void replace(double previous, double next) {
+        if (previous == next) {
+            return;
+        }
+        this.remove(previous);
+        this.add(next);
+    }
+}
@@ -0,0 +1,460 @@
+package com.github.jakubDoka.directions.game;
+
+import java.util.Random;
+
+/**
+ * CoordinateIndex is a sorted multiset of coordinates along one axis.
+ * Path keeps one for each axis so it does not have to sort all segment
+ * positions every time it expands.
+ *
+ * Steps are placed in the middle of gaps between sorted coordinates or
+ * outside of the extremes if there is no gap wide enough.
+ *
+ * Values are kept in treap stored in primitive arrays, equal values share
+ * a node. Every node knows how many gaps wide enough for a step its subtree
+ * has, so insertion, removal and picking a random gap all take O(log n).
+ */
+public class CoordinateIndex implements AxisIndex {
+    // below this radix sort does not pay off, counting passes cost more then comparing
+    private static final int RADIX_CUTOFF = 1024;
+    private static final int NIL = -1;
+
+    /**
+     * gaps at least this wide can hold a step
+     */
+    private final int gap;
+
+    // nodes
+    private final double[] keys;
+    private final int[] counts;
+    private final int[] lefts;
+    private final int[] rights;
+    private final int[] priorities;
+    // subtree summaries, see update
+    private final int[] totals;
+    private final int[] wides;
+    private final double[] mins;
+    private final double[] maxs;
+
+    private final double[] sorted;
+    private final int[] stack;
+    private final Util.Sorter sorter;
+    private int root;
+    private int used;
+    private int free;
+    private int seed;
+
+    /**
+     * Creates an empty index.
+     * @param capacity - maximum amount of values index can hold.
+     * @param size - size of the path, the same has to be passed to
+     * {@link #findStep(double, int, Random)}.
+     */
+    public CoordinateIndex(int capacity, int size) {
+        this.gap = size * 4;
+        this.keys = new double[capacity];
+        this.counts = new int[capacity];
+        this.lefts = new int[capacity];
+        this.rights = new int[capacity];
+        this.priorities = new int[capacity];
+        this.totals = new int[capacity];
+        this.wides = new int[capacity];
+        this.mins = new double[capacity];
+        this.maxs = new double[capacity];
+        this.sorted = new double[capacity];
+        this.stack = new int[capacity];
+        this.sorter = new Util.Sorter();
+        this.seed = 0x2545F491;
+        this.clear();
+    }
+
+    /**
+     * Creates a copy of other index.
+     */
+    public CoordinateIndex(CoordinateIndex other) {
+        this.gap = other.gap;
+        this.keys = other.keys.clone();
+        this.counts = other.counts.clone();
+        this.lefts = other.lefts.clone();
+        this.rights = other.rights.clone();
+        this.priorities = other.priorities.clone();
+        this.totals = other.totals.clone();
+        this.wides = other.wides.clone();
+        this.mins = other.mins.clone();
+        this.maxs = other.maxs.clone();
+        this.sorted = new double[other.sorted.length];
+        this.stack = new int[other.stack.length];
+        this.sorter = new Util.Sorter();
+        this.root = other.root;
+        this.used = other.used;
+        this.free = other.free;
+        this.seed = other.seed;
+    }
+
+    @Override
+    public void add(double value) {
+        this.root = this.insert(this.root, value);
+    }
+
+    @Override
+    public boolean remove(double value) {
+        int previous = this.size();
+        this.root = this.delete(this.root, value);
+        return this.size() != previous;
+    }
+
+    @Override
+    public void clear() {
+        this.root = NIL;
+        this.used = 0;
+        this.free = NIL;
+    }
+
+    /**
+     * Sorts values at once and builds the treap from them in linear time,
+     * instead of inserting them one by one. Long runs of whole coordinates,
+     * like the ones of fresh or restarted path, are radix sorted. Otherwise
+     * coordinates of neighboring segments are often already in order
+     * so the sort is adaptive.
+     */
+    @Override
+    public void set(double[] values, int length) {
+        System.arraycopy(values, 0, this.sorted, 0, length);
+        if (length < CoordinateIndex.RADIX_CUTOFF) {
+            this.sorter.sortAdaptive(this.sorted, length);
+        } else {
+            this.sorter.sortQuantized(this.sorted, length, 1);
+        }
+
+        this.clear();
+        // right spine of the tree built so far, priorities decrease toward the top
+        int top = 0;
+        for (int i = 0; i < length; i++) {
+            if (i != 0 && this.sorted[i] == this.sorted[i - 1]) {
+                this.counts[this.stack[top - 1]]++;
+                continue;
+            }
+            int node = this.allocate(this.sorted[i]);
+            int last = NIL;
+            while (top > 0 && this.priorities[this.stack[top - 1]] < this.priorities[node]) {
+                last = this.stack[--top];
+                this.update(last);
+            }
+            this.lefts[node] = last;
+            if (top > 0) {
+                this.rights[this.stack[top - 1]] = node;
+            }
+            this.stack[top++] = node;
+        }
+        if (top > 0) {
+            this.root = this.stack[0];
+        }
+        while (top > 0) {
+            this.update(this.stack[--top]);
+        }
+    }
+
+    /**
+     * Picks random gap among the ones wide enough and far enough from
+     * current coordinate, gaps are ordered the same way as sorted values so
+     * result does not depend on shape of the tree.
+     */
+    @Override
+    public double findStep(double current, int size, Random random) {
+        int limit = size * 4;
+        int below = this.countBelow(current, limit);
+        int above = this.countAbove(current, limit);
+        int found = below + above;
+
+        double first = this.first() - current;
+        double last = this.last() - current;
+
+        int spacing = size * 6;
+
+        if (first > 0) {
+            first += spacing;
+        } else {
+            first -= spacing;
+        }
+
+        if (last >= 0) {
+            last += spacing;
+        } else {
+            last -= spacing;
+        }
+
+        if (found == 0) {
+            return random.nextInt(2) == 0 ? first : last;
+        }
+
+        // gaps far below current come first and ones far above last
+        int pick = random.nextInt(found);
+        int k = pick < below ? pick : this.wides[this.root] - above + pick - below;
+        return this.selectGap(k) - current;
+    }
+
+    @Override
+    public AxisIndex copy() {
+        return new CoordinateIndex(this);
+    }
+
+    /**
+     * Returns i-th smallest value.
+     */
+    public double get(int i) {
+        int t = this.root;
+        while (true) {
+            int l = this.lefts[t];
+            int leftTotal = l == NIL ? 0 : this.totals[l];
+            if (i < leftTotal) {
+                t = l;
+            } else if (i < leftTotal + this.counts[t]) {
+                return this.keys[t];
+            } else {
+                i -= leftTotal + this.counts[t];
+                t = this.rights[t];
+            }
+        }
+    }
+
+    public double first() {
+        return this.mins[this.root];
+    }
+
+    public double last() {
+        return this.maxs[this.root];
+    }
+
+    public int size() {
+        return this.root == NIL ? 0 : this.totals[this.root];
+    }
+
+    private int insert(int t, double value) {
+        if (t == NIL) {
+            return this.allocate(value);
+        }
+        if (value < this.keys[t]) {
+            this.lefts[t] = this.insert(this.lefts[t], value);
+            if (this.priorities[this.lefts[t]] > this.priorities[t]) {
+                t = this.rotateRight(t);
+            }
+        } else if (value > this.keys[t]) {
+            this.rights[t] = this.insert(this.rights[t], value);
+            if (this.priorities[this.rights[t]] > this.priorities[t]) {
+                t = this.rotateLeft(t);
+            }
+        } else {
+            this.counts[t]++;
+        }
+        this.update(t);
+        return t;
+    }
+
+    private int delete(int t, double value) {
+        if (t == NIL) {
+            return NIL;
+        }
+        if (value < this.keys[t]) {
+            this.lefts[t] = this.delete(this.lefts[t], value);
+        } else if (value > this.keys[t]) {
+            this.rights[t] = this.delete(this.rights[t], value);
+        } else if (this.counts[t] > 1) {
+            this.counts[t]--;
+        } else {
+            int merged = this.merge(this.lefts[t], this.rights[t]);
+            this.lefts[t] = this.free;
+            this.free = t;
+            return merged;
+        }
+        this.update(t);
+        return t;
+    }
+
+    /**
+     * Joins two treaps, all keys of a have to be smaller then keys of b.
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (this.priorities[a] > this.priorities[b]) {
+            this.rights[a] = this.merge(this.rights[a], b);
+            this.update(a);
+            return a;
+        }
+        this.lefts[b] = this.merge(a, this.lefts[b]);
+        this.update(b);
+        return b;
+    }
+
+    private int rotateRight(int t) {
+        int l = this.lefts[t];
+        this.lefts[t] = this.rights[l];
+        this.rights[l] = t;
+        this.update(t);
+        return l;
+    }
+
+    private int rotateLeft(int t) {
+        int r = this.rights[t];
+        this.rights[t] = this.lefts[r];
+        this.lefts[r] = t;
+        this.update(t);
+        return r;
+    }
+
+    private int allocate(double value) {
+        int node;
+        if (this.free != NIL) {
+            node = this.free;
+            this.free = this.lefts[node];
+        } else {
+            node = this.used++;
+        }
+        // xorshift, tree shape must not consume randomness of the path
+        this.seed ^= this.seed << 13;
+        this.seed ^= this.seed >>> 17;
+        this.seed ^= this.seed << 5;
+        this.keys[node] = value;
+        this.counts[node] = 1;
+        this.lefts[node] = NIL;
+        this.rights[node] = NIL;
+        this.priorities[node] = this.seed;
+        this.update(node);
+        return node;
+    }
+
+    /**
+     * Recomputes summary of the subtree from its children.
+     */
+    private void update(int t) {
+        int l = this.lefts[t];
+        int r = this.rights[t];
+        double key = this.keys[t];
+        int total = this.counts[t];
+        int wide = 0;
+        this.mins[t] = key;
+        this.maxs[t] = key;
+        if (l != NIL) {
+            total += this.totals[l];
+            wide += this.wides[l];
+            this.mins[t] = this.mins[l];
+            if (key - this.maxs[l] >= this.gap) {
+                wide++;
+            }
+        }
+        if (r != NIL) {
+            total += this.totals[r];
+            wide += this.wides[r];
+            this.maxs[t] = this.maxs[r];
+            if (this.mins[r] - key >= this.gap) {
+                wide++;
+            }
+        }
+        this.totals[t] = total;
+        this.wides[t] = wide;
+    }
+
+    /**
+     * Counts wide gaps whose middle is more then limit below current.
+     * Middles grow with position of the gap so they are the first ones.
+     */
+    private int countBelow(double current, int limit) {
+        int count = 0;
+        int t = this.root;
+        while (t != NIL) {
+            int l = this.lefts[t];
+            int r = this.rights[t];
+            double key = this.keys[t];
+            if (l != NIL && this.isGapBelow(this.maxs[l], key, current, limit)) {
+                count++;
+            }
+            if (key - current < -limit) {
+                // whole left subtree lies below the key
+                if (l != NIL) {
+                    count += this.wides[l];
+                }
+                if (r != NIL && this.isGapBelow(key, this.mins[r], current, limit)) {
+                    count++;
+                }
+                t = r;
+            } else {
+                t = l;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts wide gaps whose middle is more then limit above current,
+     * they are the last ones.
+     */
+    private int countAbove(double current, int limit) {
+        int count = 0;
+        int t = this.root;
+        while (t != NIL) {
+            int l = this.lefts[t];
+            int r = this.rights[t];
+            double key = this.keys[t];
+            if (r != NIL && this.isGapAbove(key, this.mins[r], current, limit)) {
+                count++;
+            }
+            if (key - current > limit) {
+                // whole right subtree lies above the key
+                if (r != NIL) {
+                    count += this.wides[r];
+                }
+                if (l != NIL && this.isGapAbove(this.maxs[l], key, current, limit)) {
+                    count++;
+                }
+                t = l;
+            } else {
+                t = r;
+            }
+        }
+        return count;
+    }
+
+    private boolean isGapBelow(double a, double b, double current, int limit) {
+        return b - a >= this.gap && (a + b) / 2 - current < -limit;
+    }
+
+    private boolean isGapAbove(double a, double b, double current, int limit) {
+        return b - a >= this.gap && (a + b) / 2 - current > limit;
+    }
+
+    /**
+     * Returns middle of k-th wide gap in sorted order.
+     */
+    private double selectGap(int k) {
+        int t = this.root;
+        while (true) {
+            int l = this.lefts[t];
+            int r = this.rights[t];
+            double key = this.keys[t];
+            if (l != NIL) {
+                if (k < this.wides[l]) {
+                    t = l;
+                    continue;
+                }
+                k -= this.wides[l];
+                if (key - this.maxs[l] >= this.gap) {
+                    if (k == 0) {
+                        return (this.maxs[l] + key) / 2;
+                    }
+                    k--;
+                }
+            }
+            if (this.mins[r] - key >= this.gap) {
+                if (k == 0) {
+                    return (key + this.mins[r]) / 2;
+                }
+                k--;
+            }
+            t = r;
+        }
+    }
+}
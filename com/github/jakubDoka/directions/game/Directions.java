@@ -1,10 +1,13 @@
 package com.github.jakubDoka.directions.game;
 
 import java.awt.Color;
+import java.awt.event.KeyEvent;
+import java.io.FileWriter;
 
 import com.github.jakubDoka.directions.ui.Canvas;
 import com.github.jakubDoka.directions.ui.Colors;
 import com.github.jakubDoka.directions.ui.FrameManager;
+import com.github.jakubDoka.directions.ui.FramePacer;
 
 /**
  * Directions is a main game object that handles all the game logic.
@@ -15,6 +18,16 @@ public class Directions implements Runnable {
     public static final int WIDTH = 600;
     public static final int HEIGHT = 600;
     public static final Color UI_COLOR = new Color(255, 255, 255, 100);
+    public static final int TARGET_FRAME_RATE = 60;
+    /**
+     * frame rate when window is not focused or is minimized
+     */
+    public static final int THROTTLED_FRAME_RATE = 10;
+    public static final double TARGET_FRAME_TIME = 1.0 / TARGET_FRAME_RATE;
+    /**
+     * file latency histograms are exported to, see {@link #exportLatency()}
+     */
+    public static final String LATENCY_FILE = "latency.csv";
     
     private final MainMenu mainMenu;
     private final GamePlay gamePlay;
@@ -24,6 +37,7 @@ public class Directions implements Runnable {
 
     private Canvas canvas;
     private FrameManager frameManager;
+    private FramePacer framePacer;
     private State state;
 
     /**
@@ -36,6 +50,7 @@ public class Directions implements Runnable {
         this.scoreScreen = new ScoreScreen();
 
         this.frameManager = new FrameManager();
+        this.framePacer = new FramePacer(TARGET_FRAME_RATE, THROTTLED_FRAME_RATE);
         this.canvas = new Canvas("Directions", WIDTH, HEIGHT);
         
         this.data = new Data();
@@ -50,7 +65,8 @@ public class Directions implements Runnable {
     }
 
     /**
-     * Runs the game loop.
+     * Runs the game loop. Each iteration waits for the frame deadline 
+     * so loop does not use whole core.
      */
     @Override
     public void run() {
@@ -69,9 +85,16 @@ public class Directions implements Runnable {
                     this.settings.update(this);
             }
 
+            if (this.canvas.isJustPressed(KeyEvent.VK_F12)) {
+                this.exportLatency();
+            }
+
             
             this.frameManager.update();
             this.canvas.update();
+
+            this.framePacer.setThrottled(!this.canvas.isFocused() || this.canvas.isMinimized());
+            this.framePacer.sync();
         }
     }
 
@@ -173,6 +196,22 @@ public class Directions implements Runnable {
     public Canvas getCanvas() {
         return this.canvas;
     }
+
+    public FrameManager getFrameManager() {
+        return this.frameManager;
+    }
+
+    public FramePacer getFramePacer() {
+        return this.framePacer;
+    }
+
+    /**
+     * Returns how long the last frame took in seconds. Game and render 
+     * thread work in parallel, so the slower one decides.
+     */
+    public double getFrameTime() {
+        return Math.max(this.framePacer.getWorkTime(), this.canvas.getRenderTime());
+    }
     
     public int getPlayerColor() {
         return this.data.getPlayerColor();
@@ -190,6 +229,19 @@ public class Directions implements Runnable {
         this.data.save();
     }
 
+    /**
+     * Writes input latency histograms to the {@link #LATENCY_FILE} in
+     * working directory.
+     */
+    public void exportLatency() {
+        try (FileWriter writer = new FileWriter(LATENCY_FILE)) {
+            this.canvas.getLatency().export(writer);
+            writer.write("\ndropped input," + this.canvas.getDroppedInput() + "\n");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
     public Difficulty getDifficulty() {
         return this.data.getDifficulty();
     }
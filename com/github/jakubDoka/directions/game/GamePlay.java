@@ -1,14 +1,14 @@
 package com.github.jakubDoka.directions.game;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 
 import com.github.jakubDoka.directions.ui.Button;
+import com.github.jakubDoka.directions.ui.Camera;
 import com.github.jakubDoka.directions.ui.Canvas;
-import com.github.jakubDoka.directions.ui.FrameManager;
 import com.github.jakubDoka.directions.ui.Panel;
+import com.github.jakubDoka.directions.ui.RenderList;
 import com.github.jakubDoka.directions.ui.TextHandle;
 import com.github.jakubDoka.directions.ui.Vec;
 
@@ -17,16 +17,23 @@ import com.github.jakubDoka.directions.ui.Vec;
  * It contains the bail button Score display and counts the score.
  */
 public class GamePlay extends Panel {
-    private final Vec temp;
+    private static final int LOOKAHEAD_DEPTH = 64;
+    private static final double NANOS_IN_SECOND = 1_000_000_000;
+
     private final Button end;
     private final TextHandle scoreText;
     private final TextHandle tutorialHint;
-    private final FrameManager frameManager;
+    private final Camera camera;
+    private final LevelOfDetail levelOfDetail;
     
     private Path path;
     private Player player;
     private int score;
     private boolean isTutorial;
+    /**
+     * nano time of the last move, 0 if player did not move yet
+     */
+    private long lastMoveTime;
 
     /**
      * Constructs the GamePlay object. It will be initially hidden after
@@ -34,8 +41,6 @@ public class GamePlay extends Panel {
      */
     public GamePlay() {
         super(new Rectangle(), new Color(0, true));
-        
-        this.temp = new Vec();
 
         this.end = new Button(
             Color.GRAY,
@@ -52,8 +57,8 @@ public class GamePlay extends Panel {
         this.tutorialHint = new TextHandle(Fonts.SMALL, Directions.WIDTH / 2, 40);
         this.tutorialHint.setMargin(TextHandle.Margin.CENTER);
 
-        this.frameManager = new FrameManager();
-        
+        this.camera = new Camera();
+        this.levelOfDetail = new LevelOfDetail(Directions.TARGET_FRAME_TIME);
 
         this.score = 0;
 
@@ -65,13 +70,23 @@ public class GamePlay extends Panel {
     }
 
     @Override
-    public void drawImpl(Graphics2D g) {
+    public void drawImpl(RenderList g) {
+        this.camera.apply(g);
         this.path.drawImpl(g);
         g.setColor(this.player.getColor());
         this.player.drawImpl(g);
+        this.camera.restore(g);
         super.drawImpl(g);
     }
 
+    /**
+     * Path and player are in world space and can be anywhere on the screen.
+     */
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        return null;
+    }
+
     /**
      * Starts the game and allows player to make moves.
      * @param isTutorial
@@ -80,7 +95,8 @@ public class GamePlay extends Panel {
         this.isTutorial = isTutorial;
         this.setVisible(true);
 
-        this.frameManager.setDelta(1);
+        this.lastMoveTime = 0;
+        this.camera.setOffset(0, 0);
         
         if (this.isTutorial) {
             this.tutorialHint.setText(
@@ -96,6 +112,10 @@ public class GamePlay extends Panel {
             this.score = 0;
         }
 
+        if (this.path != null) {
+            this.path.stopLookahead();
+        }
+
         this.player = new Player(difficulty.getPathSize(), Directions.WIDTH / 2, Directions.HEIGHT / 2);
         this.player.setColor(playerColor);
         this.path = new Path(
@@ -105,9 +125,12 @@ public class GamePlay extends Panel {
             Directions.HEIGHT / 2
         );
         this.path.setColor(pathColor);
+        this.path.setLevelOfDetail(this.levelOfDetail);
         for (int i = 0; i < 3; i++) {
             this.path.expand();
         }
+        this.path.startLookahead(LOOKAHEAD_DEPTH);
+        this.invalidate();
     }
 
     /**
@@ -117,49 +140,53 @@ public class GamePlay extends Panel {
      */
     public void update(Directions directions) {
         Canvas canvas = directions.getCanvas();
-        Vec shift = this.temp;
-        boolean moved = true;
-        if (canvas.isJustPressed(KeyEvent.VK_LEFT)) {
-            shift = this.path.move(Path.Direction.LEFT);
-        } else if (canvas.isJustPressed(KeyEvent.VK_RIGHT)) {
-            shift = this.path.move(Path.Direction.RIGHT);
-        } else if (canvas.isJustPressed(KeyEvent.VK_UP)) {
-            shift = this.path.move(Path.Direction.UP);
-        } else if (canvas.isJustPressed(KeyEvent.VK_DOWN)) {
-            shift = this.path.move(Path.Direction.DOWN);
-        } else {
-            moved = false;
+        if (this.levelOfDetail.govern(directions.getFrameTime())) {
+            this.invalidate();
         }
 
-        if (shift == null) {
-            if (this.isTutorial) {
-                this.tutorialHint.setText("press " + this.path.getCorrectDirection() + " key");
-            } else {
+        // every key press is a move, even if player pressed more keys in one frame
+        for (int i = 0; i < canvas.getKeyPressCount(); i++) {
+            Path.Direction direction = toDirection(canvas.getKeyPress(i));
+            if (direction == null) {
+                continue;
+            }
+
+            Vec shift = this.path.move(direction);
+            if (shift == null) {
+                if (this.isTutorial) {
+                    this.tutorialHint.setText("press " + this.path.getCorrectDirection() + " key");
+                    continue;
+                }
                 this.setVisible(false);
+                this.path.stopLookahead();
                 directions.showScore(this.score);
+                return;
             }
-        } else if (moved) {
+
             if (this.isTutorial) {
                 this.tutorialHint.setText("");
             } else {
                 // faster you move more score you get per move, difficulty also multiplies 
-                // the score.
-                double delta = this.frameManager.getDelta();
+                // the score. Time is taken from events so moves made in one frame are 
+                // not counted as instant.
+                long time = canvas.getKeyPressTime(i);
+                double delta = this.lastMoveTime == 0 ? 1 : (time - this.lastMoveTime) / NANOS_IN_SECOND;
+                this.lastMoveTime = time;
 
                 int addition = (int)((1 - Math.min(Math.pow(delta, 1 / 30.0), 1)) * 1000) * 
                     (directions.getDifficulty().ordinal() + 1);
     
                 this.score += addition;
                 this.scoreText.setText(String.valueOf(this.score));
-    
-                this.frameManager.update();
             }
 
-            Vec pathShift = this.player.move(shift);
-            this.path.shift(-pathShift.getX(), -pathShift.getY());
+            this.player.move(shift, this.camera);
+            // path and player are not items so they do not report damage on their own
+            this.invalidate();
         }
 
         if (this.end.pressed(canvas)) {
+            this.path.stopLookahead();
             if (this.isTutorial) {
                 directions.showMainMenu();
             } else {
@@ -168,4 +195,22 @@ public class GamePlay extends Panel {
             this.setVisible(false);
         }
     }
+
+    /**
+     * Returns direction arrow key stands for or null if key is not an arrow.
+     */
+    private static Path.Direction toDirection(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_LEFT:
+                return Path.Direction.LEFT;
+            case KeyEvent.VK_RIGHT:
+                return Path.Direction.RIGHT;
+            case KeyEvent.VK_UP:
+                return Path.Direction.UP;
+            case KeyEvent.VK_DOWN:
+                return Path.Direction.DOWN;
+            default:
+                return null;
+        }
+    }
 }
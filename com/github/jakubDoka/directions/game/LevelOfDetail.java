@@ -0,0 +1,82 @@
+package com.github.jakubDoka.directions.game;
+
+/**
+ * LevelOfDetail controls how much of the faded path tail is drawn.
+ * Parts of the path faded more then the threshold are skipped. Governor 
+ * tightens the threshold when frames take longer then target and 
+ * relaxes it again once there is time to spare.
+ *
+ * Frame time has to include drawing, which happens on render thread, 
+ * see {@link Directions#getFrameTime()}.
+ */
+public class LevelOfDetail {
+    private static final double STEP = 0.05;
+    /**
+     * frame has to be this much faster then target before detail is increased,
+     * keeps the threshold from oscillating around the target
+     */
+    private static final double RELAX_RATIO = 0.75;
+
+    private final double targetFrameTime;
+    private double threshold;
+    private double minThreshold;
+
+    /**
+     * Creates new level of detail drawing everything.
+     * @param targetFrameTime - frame time governor aims for in seconds.
+     */
+    public LevelOfDetail(double targetFrameTime) {
+        this.targetFrameTime = targetFrameTime;
+        this.threshold = 1;
+        this.minThreshold = 0.25;
+    }
+
+    /**
+     * Adjusts the threshold based on the duration of last frame.
+     * Needs to be called every frame.
+     * @param frameTime - duration of the last frame in seconds.
+     * @return - true if threshold changed and path has to be redrawn.
+     */
+    public boolean govern(double frameTime) {
+        double previous = this.threshold;
+        if (frameTime > this.targetFrameTime) {
+            this.threshold = Math.max(this.threshold - STEP, this.minThreshold);
+        } else if (frameTime < this.targetFrameTime * RELAX_RATIO) {
+            this.threshold = Math.min(this.threshold + STEP, 1);
+        }
+        return this.threshold != previous;
+    }
+
+    /**
+     * Returns fade value above which parts of path are not drawn, 
+     * 1 means everything is drawn.
+     */
+    public double getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Sets the fade threshold, governor keeps adjusting it from this value.
+     * @param threshold - 0 to 1
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = Math.min(Math.max(threshold, this.minThreshold), 1);
+    }
+
+    public double getMinThreshold() {
+        return this.minThreshold;
+    }
+
+    /**
+     * Sets the lowest threshold governor can go to.
+     * @param minThreshold - 0 to 1
+     */
+    public void setMinThreshold(double minThreshold) {
+        this.minThreshold = minThreshold;
+        this.threshold = Math.max(this.threshold, minThreshold);
+    }
+
+    public double getTargetFrameTime() {
+        return this.targetFrameTime;
+    }
+}
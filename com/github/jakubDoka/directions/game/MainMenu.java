@@ -2,24 +2,43 @@ package com.github.jakubDoka.directions.game;
 
 import java.awt.Color;
 import java.awt.Rectangle;
-import java.awt.Graphics2D;
 
 import com.github.jakubDoka.directions.ui.Button;
+import com.github.jakubDoka.directions.ui.Camera;
 import com.github.jakubDoka.directions.ui.Canvas;
 import com.github.jakubDoka.directions.ui.Panel;
+import com.github.jakubDoka.directions.ui.RenderList;
+import com.github.jakubDoka.directions.ui.Vec;
 
 /**
  * Main menu is the initial screen of the game. It appears the moment it is 
  * added to canvas. Other then navigation ui, main menu runs the procedural 
- * animation in background and calls thread sleep. 
+ * animation in background. Animation speed does not depend on frame rate.
  */
 public class MainMenu extends Panel {
+    private static final int CAMERA_PADDING = 60;
+    /**
+     * seconds between two expansions of the background path
+     */
+    private static final double EXPAND_PERIOD = 0.0125;
+    /**
+     * after long stall animation skips instead of catching up all at once
+     */
+    private static final int MAX_EXPANSIONS = 8;
+
     private final Button play;
     private final Button settings;
     private final Button tutorial;
     private final Button exit;
 
     private final Path path;
+    private final Path.Segment pathHead;
+    private final Camera camera;
+    private final Rectangle cameraArea;
+    private final Vec temp;
+    private final LevelOfDetail levelOfDetail;
+
+    private double accumulator;
 
     /**
      * Creates new main menu. Visible by default.
@@ -36,6 +55,17 @@ public class MainMenu extends Panel {
         );
 
         this.path = new Path(100, 6, Directions.WIDTH / 2, Directions.HEIGHT / 2);
+        this.pathHead = new Path.Segment();
+        this.camera = new Camera();
+        this.cameraArea = new Rectangle(
+            CAMERA_PADDING, 
+            CAMERA_PADDING, 
+            Directions.WIDTH - CAMERA_PADDING * 2, 
+            Directions.HEIGHT - CAMERA_PADDING * 2
+        );
+        this.temp = new Vec();
+        this.levelOfDetail = new LevelOfDetail(Directions.TARGET_FRAME_TIME);
+        this.path.setLevelOfDetail(this.levelOfDetail);
 
         final int padding = 10;
         
@@ -69,14 +99,26 @@ public class MainMenu extends Panel {
         this.tutorial = buttons[2];
         this.exit = buttons[3]; 
 
+        // buttons change only on hover, path is drawn outside of the layer
+        this.setCached(true);
     }
 
     @Override
-    public void drawImpl(Graphics2D g) {
+    public void drawImpl(RenderList g) {
+        this.camera.apply(g);
         this.path.drawImpl(g);
+        this.camera.restore(g);
         super.drawImpl(g);
     }
 
+    /**
+     * Background animation covers whole screen.
+     */
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        return null;
+    }
+
     /**
      * Makes main menu responsive to user input. Animates the background.
      */
@@ -92,13 +134,27 @@ public class MainMenu extends Panel {
             System.exit(0);
         }
 
-        this.path.expand();
+        boolean changed = this.levelOfDetail.govern(directions.getFrameTime());
+
+        this.accumulator += directions.getFrameManager().getDelta();
+        int expansions = 0;
+        while (this.accumulator >= EXPAND_PERIOD && expansions < MAX_EXPANSIONS) {
+            this.path.expand();
+            this.accumulator -= EXPAND_PERIOD;
+            expansions++;
+        }
+        this.accumulator = Math.min(this.accumulator, EXPAND_PERIOD);
+
+        if (expansions != 0) {
+            // path can wander away over time, camera keeps its head on the screen
+            this.path.getSegment(this.path.getLength() - 1, this.pathHead).getPos(this.temp);
+            this.camera.follow(this.temp, this.cameraArea);
+            changed = true;
+        }
 
-        // So that animation wont cause epileptic seizures
-        try {
-            Thread.sleep(10);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        if (changed) {
+            // path is not an item so it does not report damage on its own
+            this.invalidate();
         }
     }
 
@@ -0,0 +1,212 @@
+package com.github.jakubDoka.directions.game;
+
+import java.util.Random;
+
+/**
+ * OccupancyGrid quantizes coordinates along one axis into cells of path 
+ * size and counts segments in each cell. Cells are stored in open 
+ * addressing hash so the grid does not care how far the path wanders.
+ * 
+ * Steps are multiples of path size and only cells within fixed window 
+ * around current coordinate are inspected, so the work per step does 
+ * not grow with the length of the path.
+ */
+public class OccupancyGrid implements AxisIndex {
+    /**
+     * how far the step can go in cells, unless whole window is occupied
+     */
+    private static final int WINDOW = 16;
+    /**
+     * cells on each side of step that has to be free, same clearance 
+     * sorted gaps guarantee
+     */
+    private static final int CLEARANCE = 2;
+    /**
+     * minimal step in cells, sorted gaps require more then size * 4
+     */
+    private static final int MIN_STEP = 5;
+
+    private final int size;
+    private final int[] keys;
+    private final int[] counts;
+    private final int mask;
+    private final int[] occupied;
+    private final int[] candidates;
+
+    /**
+     * Creates empty grid.
+     * @param capacity - maximum amount of values grid will hold.
+     * @param size - size of the cell.
+     */
+    public OccupancyGrid(int capacity, int size) {
+        int slots = Integer.highestOneBit(Math.max(capacity * 2, 16) - 1) << 1;
+        this.size = size;
+        this.keys = new int[slots];
+        this.counts = new int[slots];
+        this.mask = slots - 1;
+        this.occupied = new int[(WINDOW + CLEARANCE) * 2 + 2];
+        this.candidates = new int[WINDOW * 2];
+    }
+
+    /**
+     * Creates a copy of other grid.
+     */
+    public OccupancyGrid(OccupancyGrid other) {
+        this.size = other.size;
+        this.keys = other.keys.clone();
+        this.counts = other.counts.clone();
+        this.mask = other.mask;
+        this.occupied = new int[other.occupied.length];
+        this.candidates = new int[other.candidates.length];
+    }
+
+    @Override
+    public void add(double value) {
+        int cell = this.cell(value);
+        int slot = this.slot(cell);
+        if (this.counts[slot] == 0) {
+            this.keys[slot] = cell;
+        }
+        this.counts[slot]++;
+    }
+
+    @Override
+    public boolean remove(double value) {
+        int slot = this.slot(this.cell(value));
+        if (this.counts[slot] == 0) {
+            return false;
+        }
+        this.counts[slot]--;
+        if (this.counts[slot] == 0) {
+            this.compact(slot);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+    }
+
+    @Override
+    public double findStep(double current, int size, Random random) {
+        int base = this.cell(current);
+
+        // prefix sums of occupancy around current cell, occupied[j] holds 
+        // amount of occupied cells in [base - WINDOW - CLEARANCE, origin + j)
+        int origin = base - WINDOW - CLEARANCE;
+        this.occupied[0] = 0;
+        for (int j = 1; j < this.occupied.length; j++) {
+            int taken = this.count(origin + j - 1) > 0 ? 1 : 0;
+            this.occupied[j] = this.occupied[j - 1] + taken;
+        }
+
+        int found = 0;
+        for (int k = MIN_STEP; k <= WINDOW; k++) {
+            if (this.isFreeInWindow(k)) {
+                this.candidates[found++] = k;
+            }
+            if (this.isFreeInWindow(-k)) {
+                this.candidates[found++] = -k;
+            }
+        }
+
+        int pick;
+        if (found != 0) {
+            pick = this.candidates[random.nextInt(found)];
+        } else if (random.nextInt(2) == 0) {
+            pick = this.firstFree(base, WINDOW + 1, 1);
+        } else {
+            pick = this.firstFree(base, -WINDOW - 1, -1);
+        }
+
+        return pick * (double)this.size;
+    }
+
+    @Override
+    public AxisIndex copy() {
+        return new OccupancyGrid(this);
+    }
+
+    /**
+     * Returns whether cells around step k are free, k has to be inside window.
+     */
+    private boolean isFreeInWindow(int k) {
+        int from = k + WINDOW;
+        int to = from + CLEARANCE * 2 + 1;
+        return this.occupied[to] - this.occupied[from] == 0;
+    }
+
+    /**
+     * Walks from the step k in given direction and returns the first free one.
+     * Used only when whole window is occupied.
+     */
+    private int firstFree(int base, int k, int direction) {
+        while (true) {
+            boolean free = true;
+            for (int i = -CLEARANCE; i <= CLEARANCE; i++) {
+                if (this.count(base + k + i) > 0) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                return k;
+            }
+            k += direction;
+        }
+    }
+
+    private int cell(double value) {
+        return (int)Math.floor(value / this.size);
+    }
+
+    private int hash(int cell) {
+        return (cell * 0x9E3779B9) & this.mask;
+    }
+
+    /**
+     * Returns amount of values in the cell.
+     */
+    private int count(int cell) {
+        return this.counts[this.slot(cell)];
+    }
+
+    /**
+     * Returns slot holding the cell or empty slot where it belongs.
+     */
+    private int slot(int cell) {
+        int slot = this.hash(cell);
+        while (this.counts[slot] != 0 && this.keys[slot] != cell) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Closes the hole left by emptied slot so that probing 
+     * still finds all the cells after it.
+     */
+    private void compact(int hole) {
+        int next = hole;
+        while (true) {
+            next = (next + 1) & this.mask;
+            if (this.counts[next] == 0) {
+                break;
+            }
+            int home = this.hash(this.keys[next]);
+            boolean reachable = hole <= next 
+                ? hole < home && home <= next 
+                : hole < home || home <= next;
+            if (reachable) {
+                continue;
+            }
+            this.keys[hole] = this.keys[next];
+            this.counts[hole] = this.counts[next];
+            hole = next;
+        }
+        this.counts[hole] = 0;
+    }
+}
@@ -1,28 +1,72 @@
 package com.github.jakubDoka.directions.game;
-import java.awt.Graphics2D;
 import java.awt.Color;
 import java.awt.Rectangle;
+import java.awt.geom.Path2D;
 import java.util.Random;
 
+import com.github.jakubDoka.directions.ui.Camera;
 import com.github.jakubDoka.directions.ui.CanvasObject;
 import com.github.jakubDoka.directions.ui.Colors;
+import com.github.jakubDoka.directions.ui.RenderList;
 import com.github.jakubDoka.directions.ui.Vec;
 
 /**
  * Path represents a game path trough which the player is going.
  * Important role of paths is to not overlap in a way that disallows
  * game-play. It has to be always obvious where the path is heading.
+ * 
+ * Segments are stored as parallel primitive arrays in circular buffer, 
+ * {@link Segment} is only a view for code that needs to inspect them.
+ * Positions are in world space, use {@link Camera} to draw them.
  */
 public class Path extends CanvasObject {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /**
+     * amount of fade levels connectors are grouped into when drawing
+     */
+    private static final int FADE_LEVELS = 32;
+    /**
+     * amount of precomputed faded colors
+     */
+    private static final int PALETTE_SIZE = 256;
+    /**
+     * palette index of each fade level
+     */
+    private static final int[] LEVEL_PALETTE = new int[FADE_LEVELS];
+
+    static {
+        for (int i = 0; i < FADE_LEVELS; i++) {
+            LEVEL_PALETTE[i] = i * (PALETTE_SIZE - 1) / (FADE_LEVELS - 1);
+        }
+    }
+
     private final Random random;
     private final Rectangle drawer;
     private final Vec temp;
     private final Vec temp2;
-    private final Segment[] segments;
-    private final Vec[] sortTemp;
+    private final double[] xs;
+    private final double[] ys;
+    private final byte[] directions;
+    private int head;
+    private StepEngine engine;
+    private AxisIndex xIndex;
+    private AxisIndex yIndex;
     private int current;
     private final int size;
-    private final double[] possibilities;
+    private int color;
+    private final Color[] palette;
+    private PathLookahead lookahead;
+    private LevelOfDetail levelOfDetail;
+
+    // drawing batches, rebuilt only when path changes, render lists 
+    // reference them so they are never changed once built
+    private final Path2D.Float[] connectors;
+    private final int[] connectorCounts;
+    private Path2D.Float centers;
+    private int centerCount;
+    private final Rectangle goal;
+    private boolean dirty;
+    private double batchThreshold;
 
     /**
      * Creates a path that will appear as a square at the given x and y.
@@ -33,58 +77,190 @@ public class Path extends CanvasObject {
      * path segments.
      */
     public Path(int length, int size, double x, double y) {
+        this(length, size, x, y, StepEngine.SORTED);
+    }
+
+    /**
+     * Creates a path that will appear as a square at the given x and y.
+     * @param x - x coordinate of the initial square.
+     * @param y - y coordinate of the initial square.
+     * @param length - amount of segments path will have.
+     * @param size - size of the path, multiplicate of the value are used to display 
+     * path segments.
+     * @param engine - algorithm used to find next step.
+     */
+    public Path(int length, int size, double x, double y, StepEngine engine) {
         this.random = new Random();
         this.drawer = new Rectangle();
         this.temp = new Vec();
         this.temp2 = new Vec();
-        this.segments = new Segment[length];
+        this.xs = new double[length];
+        this.ys = new double[length];
+        this.directions = new byte[length];
+        this.engine = engine;
+        this.xIndex = engine.create(length, size);
+        this.yIndex = engine.create(length, size);
         for (int i = 0; i < length; i++) {
-            this.segments[i] = new Segment(new Vec(x, y));
-        }
-        this.sortTemp = new Vec[length];
-        for (int i = 0; i < length; i++) {
-            this.sortTemp[i] = new Vec();
+            this.xs[i] = x;
+            this.ys[i] = y;
+            this.directions[i] = (byte)Direction.UP.ordinal();
         }
+        this.xIndex.set(this.xs, length);
+        this.yIndex.set(this.ys, length);
+        this.head = 0;
         this.current = length - 1;
         this.size = size;
-        this.possibilities = new double[length + 1];
+        this.color = 0xFF000000;
+        this.palette = new Color[PALETTE_SIZE];
+        this.fillPalette();
+
+        this.connectors = new Path2D.Float[FADE_LEVELS];
+        this.connectorCounts = new int[FADE_LEVELS];
+        this.goal = new Rectangle();
+        this.dirty = true;
+    }
+
+    /**
+     * Creates a snapshot of other path. Random generator is shared 
+     * so the snapshot continues the same sequence.
+     */
+    Path(Path other) {
+        this.random = other.random;
+        this.drawer = new Rectangle();
+        this.temp = new Vec();
+        this.temp2 = new Vec();
+        this.xs = other.xs.clone();
+        this.ys = other.ys.clone();
+        this.directions = other.directions.clone();
+        this.engine = other.engine;
+        this.xIndex = other.xIndex.copy();
+        this.yIndex = other.yIndex.copy();
+        this.head = other.head;
+        this.current = other.current;
+        this.size = other.size;
+        this.color = other.color;
+        this.palette = other.palette.clone();
+
+        this.connectors = new Path2D.Float[FADE_LEVELS];
+        this.connectorCounts = new int[FADE_LEVELS];
+        this.goal = new Rectangle();
+        this.dirty = true;
+    }
+
+    /**
+     * Reseeds the random generator so that same path can be generated 
+     * again, has to be called before lookahead is started.
+     */
+    public void setSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    public StepEngine getStepEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Switches the algorithm used to find next step. Indexes are rebuilt 
+     * from current segments, running lookahead is restarted so it 
+     * uses the new engine too.
+     */
+    public void setStepEngine(StepEngine engine) {
+        PathLookahead localLookahead = this.lookahead;
+        this.stopLookahead();
+
+        this.engine = engine;
+        this.xIndex = engine.create(this.xs.length, this.size);
+        this.yIndex = engine.create(this.xs.length, this.size);
+        this.xIndex.set(this.xs, this.xs.length);
+        this.yIndex.set(this.ys, this.ys.length);
+
+        if (localLookahead != null) {
+            this.startLookahead(localLookahead.getCapacity());
+        }
+    }
+
+    /**
+     * Starts generating steps ahead on background thread. Path has to 
+     * be expanded only trough {@link #expand()} from now on.
+     * @param depth - how many steps can be generated ahead.
+     */
+    public void startLookahead(int depth) {
+        this.stopLookahead();
+        this.lookahead = new PathLookahead(this, depth);
+        this.lookahead.start();
+    }
+
+    /**
+     * Stops background generation if it is running. Steps generated ahead
+     * are dropped but they already advanced the random generator, reseed
+     * the path if following steps have to be reproducible.
+     */
+    public void stopLookahead() {
+        if (this.lookahead != null) {
+            this.lookahead.stop();
+            this.lookahead = null;
+        }
     }
 
     /**
-     * moves last segment to the first position in the array
+     * @return - running lookahead or null.
+     */
+    public PathLookahead getLookahead() {
+        return this.lookahead;
+    }
+
+    /**
+     * Makes oldest segment the newest one. Segments are stored in circular 
+     * buffer so this only moves the head.
      */
     public void makeLastFirst() {
-        Segment last = this.segments[0];
-        for (int i = 1; i < this.segments.length; i++) {
-            this.segments[i - 1] = this.segments[i];
+        this.dirty = true;
+        this.invalidate();
+        this.head++;
+        if (this.head == this.xs.length) {
+            this.head = 0;
         }
-        this.segments[this.segments.length - 1] = last;
     }
 
     /**
-     * Shifts all segment positions by a given amount.
-     * 
-     * @param x - amount of x shift
-     * @param y - amount of y shift
+     * Returns array index of i-th segment where 0 is the oldest one and 
+     * length - 1 is the newest one.
      */
-    public void shift(double x, double y) {
-        this.temp.set(x, y);
-        for (Segment segment : this.segments) {
-            segment.setPos(segment.getPos(this.temp2).add(this.temp));
+    private int index(int i) {
+        return (this.head + i) % this.xs.length;
+    }
+
+    public int getLength() {
+        return this.xs.length;
+    }
+
+    /**
+     * Fills the view with state of i-th segment.
+     * @param i - 0 is the oldest segment, length - 1 the newest one.
+     * @param target - view to fill, can be null to create new one.
+     * @return - target argument passed as return value.
+     */
+    public Segment getSegment(int i, Segment target) {
+        if (target == null) {
+            target = new Segment();
         }
+        int index = this.index(i);
+        target.set(this.xs[index], this.ys[index], DIRECTIONS[this.directions[index]], this.color);
+        return target;
     }
 
     /**
-     * Move expands the path or returns false, path is also shifted so that 
-     * it looks like player moved.
+     * Move expands the path or returns null. Path is in world space so 
+     * it is not shifted, caller should move the camera instead.
      *  
      * @param direction - direction player intends to move
-     * @return - is move was successful
+     * @return - difference between previous and new player position, 
+     * null if move was not successful
      */
     public Vec move(Direction direction) {
-        Segment localCurrent = this.segments[this.current];
+        int localCurrent = this.index(this.current);
 
-        if (localCurrent.getDirection() != direction) {
+        if (this.directions[localCurrent] != direction.ordinal()) {
             return null;
         }
         
@@ -92,176 +268,264 @@ public class Path extends CanvasObject {
         
         this.expand();
 
-        Vec shift = localCurrent.getPos(this.temp2).sub(this.segments[this.current].getPos(this.temp));
-        
-        return shift;
+        int next = this.index(this.current);
+        return this.temp2.set(
+            this.xs[localCurrent] - this.xs[next], 
+            this.ys[localCurrent] - this.ys[next]
+        );
     }
 
     /**
      * Expands the path in random direction. Directions is 
-     * always colinear to current direction.
+     * always colinear to current direction. Precomputed step is 
+     * used if lookahead is running.
      */
     public void expand() {
-        Direction direction = this.segments[this.segments.length - 2].getDirection();
-        Segment localCurrent = this.segments[this.segments.length - 1];
+        if (this.lookahead != null) {
+            this.lookahead.next(this);
+            return;
+        }
+
+        final int length = this.xs.length;
+        Direction direction = DIRECTIONS[this.directions[this.index(length - 2)]];
+        int localCurrent = this.index(length - 1);
+        int oldest = this.index(0);
         
-        Vec currentPos = this.segments[this.segments.length - 1].getPos(this.temp);
+        Vec currentPos = this.temp.set(this.xs[localCurrent], this.ys[localCurrent]);
 
-        this.segments[0].setPos(currentPos);
+        this.moveSegment(oldest, currentPos.getX(), currentPos.getY());
         Vec step = this.getStep(direction, currentPos);
-        Direction nextDirection = Direction.of(step);
-        localCurrent.setDirection(nextDirection);
-        this.segments[0].shift(step);
+        this.directions[localCurrent] = (byte)Direction.of(step).ordinal();
+        this.moveSegment(oldest, this.xs[oldest] + step.getX(), this.ys[oldest] + step.getY());
         this.makeLastFirst();
 
         this.current--;
     }
 
+    /**
+     * Appends a step generated by snapshot of this path. It has the 
+     * same effect as {@link #expand()}.
+     * @param x - x coordinate of the new segment.
+     * @param y - y coordinate of the new segment.
+     * @param direction - direction ordinal of the segment preceding new one.
+     */
+    void push(double x, double y, byte direction) {
+        final int length = this.xs.length;
+        this.directions[this.index(length - 1)] = direction;
+        this.moveSegment(this.index(0), x, y);
+        this.makeLastFirst();
+
+        this.current--;
+    }
+
+    /**
+     * Offers the step that created newest segment.
+     */
+    void offerNewest(StepQueue queue) {
+        final int length = this.xs.length;
+        int newest = this.index(length - 1);
+        queue.offer(this.xs[newest], this.ys[newest], this.directions[this.index(length - 2)]);
+    }
+
+    /**
+     * Pushes the step that created newest segment to the target.
+     */
+    void pushNewest(Path target) {
+        final int length = this.xs.length;
+        int newest = this.index(length - 1);
+        target.push(this.xs[newest], this.ys[newest], this.directions[this.index(length - 2)]);
+    }
+
     /**
      * Returns best possible step so that the path does not overlap weirdly.
-     * This means player can always know where to move.
+     * This means player can always know where to move. Step is searched 
+     * in index of the axis perpendicular to direction.
      * 
      * @param direction - direction in which step should be
      * @return - next position relative to current position
      */
     public Vec getStep(Direction direction, Vec currentPos) {
-        // creating the vector mapping
-        for (int i = 0; i < this.segments.length; i++) {
-            this.segments[i].getPos(this.sortTemp[i]);
-        }
-
-        boolean horizontal = direction.horizontal();        
-        
-        double localCurrent; 
-        if (horizontal) {
-            localCurrent = currentPos.getY();
-            Util.sort(this.sortTemp, (a, b) -> a.getY() > b.getY());
-        } else {
-            localCurrent = currentPos.getX();
-            Util.sort(this.sortTemp, (a, b) -> a.getX() > b.getX());
+        if (direction.horizontal()) {
+            return this.temp.set(0, this.yIndex.findStep(currentPos.getY(), this.size, this.random));
+        } else { 
+            return this.temp.set(this.xIndex.findStep(currentPos.getX(), this.size, this.random), 0);
         }
+    }
 
-        // finding best gap
-        int found = 0;
-        for (int i = 1; i < this.sortTemp.length; i++) {
-            double a;
-            double b;
-            if (horizontal) {
-                a = this.sortTemp[i].getY();
-
-                b = this.sortTemp[i - 1].getY();
-            } else {
-                a = this.sortTemp[i].getX();
-                b = this.sortTemp[i - 1].getX();
-            }
-            
-            if (Math.abs(a - b) < this.size * 4) {
-                continue;
-            }
-            
-            double mid = (a + b) / 2 - localCurrent;
-            
-            if (Math.abs(mid) > this.size * 4) {
-                this.possibilities[found + 2] = mid;
-                found++;
-            } 
-        }
+    /**
+     * Sets the segment position and keeps coordinate indexes up to date.
+     * @param index - array index of the segment.
+     */
+    private void moveSegment(int index, double x, double y) {
+        this.xIndex.replace(this.xs[index], x);
+        this.yIndex.replace(this.ys[index], y);
+        this.xs[index] = x;
+        this.ys[index] = y;
+        this.dirty = true;
+        this.invalidate();
+    }
 
-        
-        double last;
-        double first;
-
-        if (horizontal) {
-            first = this.sortTemp[0].getY();
-            last = this.sortTemp[this.sortTemp.length - 1].getY();
-        } else {
-            first = this.sortTemp[0].getX();
-            last = this.sortTemp[this.sortTemp.length - 1].getX();
+    /**
+     * Draws the path. Geometry is grouped into batches by fade level so
+     * that each level is filled at once, batches are rebuilt only when 
+     * the path changes. Batches are only referenced by the list, so
+     * unchanged path costs the same to record no matter how long it is.
+     */
+    @Override
+    public void drawImpl(RenderList g) {
+        double threshold = this.levelOfDetail == null ? 1 : this.levelOfDetail.getThreshold();
+        if (this.dirty || threshold != this.batchThreshold) {
+            this.rebuildBatches(threshold);
         }
 
-        first -= localCurrent;
-        last -= localCurrent;
-
-        int spacing = this.size * 6;
-
-        if (first > 0) {
-            first += spacing;
-        } else {
-            first -= spacing;
+        // most faded first, same order connectors had when drawn one by one
+        for (int i = FADE_LEVELS - 1; i >= 0; i--) {
+            if (this.connectorCounts[i] != 0) {
+                g.setColor(this.palette[LEVEL_PALETTE[i]]);
+                g.fillShared(this.connectors[i]);
+            }
         }
 
-        if (last >= 0) {
-            last += spacing;
-        } else {
-            last -= spacing;
-        }
+        g.setColor(this.palette[0]);
+        g.fillShared(this.centers);
+        g.setColor(Color.GREEN);
+        g.fill(this.goal);
+    }
 
-        this.possibilities[0] = first;
-        this.possibilities[1] = last;
+    /**
+     * Rebuilds drawing batches. When level of detail is set, the tail faded 
+     * beyond the threshold is skipped and parts smaller then a pixel are 
+     * dropped. Every step turns, so connectors are never collinear and 
+     * there is nothing to merge.
+     *
+     * Old batches can still be replayed on the render thread, new ones are
+     * created instead of resetting them, sized after the old ones.
+     */
+    private void rebuildBatches(double threshold) {
+        final int length = this.xs.length;
+        final boolean simplify = this.levelOfDetail != null;
 
-        int pick;
-        if (found == 0) {
-            pick = this.random.nextInt(2);
-        } else {
-            pick = 2 + this.random.nextInt(found);
+        for (int i = 0; i < FADE_LEVELS; i++) {
+            this.connectors[i] = Path.newBatch(this.connectorCounts[i]);
+            this.connectorCounts[i] = 0;
         }
+        this.centers = Path.newBatch(this.centerCount);
+        this.centerCount = 0;
 
-        double finalStep = this.possibilities[pick];
-
-        if (horizontal) {
-            return this.temp.set(0, finalStep);
-        } else { 
-            return this.temp.set(finalStep, 0);
+        int start = 0;
+        if (simplify) {
+            start = Math.min((int)Math.ceil((1 - threshold) * length), length - 1);
         }
-    }
 
-    @Override
-    public void drawImpl(Graphics2D g) {
         // connect segment connections
-        for (int i = 0; i < this.segments.length - 1; i++) {
-            Segment a = this.segments[i];
-            Segment b = this.segments[i + 1];
-            Vec difference = b.getPos(this.temp).sub(a.getPos(this.temp2));
-            if (Math.round(difference.getX()) == 0) {
-                this.drawer.setSize(this.size, (int)Math.abs(difference.getY()) + this.size);
+        for (int i = start; i < length - 1; i++) {
+            int a = this.index(i);
+            int b = this.index(i + 1);
+            double ax = this.xs[a];
+            double ay = this.ys[a];
+            double bx = this.xs[b];
+            double by = this.ys[b];
+            boolean vertical = Math.round(bx - ax) == 0;
+
+            // segment centers cover it anyway
+            if (simplify && Math.abs(bx - ax) < 1 && Math.abs(by - ay) < 1) {
+                continue;
+            }
+
+            if (vertical) {
+                this.drawer.setSize(this.size, (int)Math.abs(by - ay) + this.size);
             } else {
-                this.drawer.setSize((int)Math.abs(difference.getX()) + this.size, this.size);
+                this.drawer.setSize((int)Math.abs(bx - ax) + this.size, this.size);
             }
-            Vec min = a.getPos(this.temp).min(b.getPos(this.temp2));
             this.drawer.setLocation(
-                (int)min.getX() - this.size / 2,
-                (int)min.getY() - this.size / 2
+                (int)Math.min(ax, bx) - this.size / 2,
+                (int)Math.min(ay, by) - this.size / 2
             );
-            g.setColor(a.getColor(1 - (double)i / this.segments.length));
-            g.fill(this.drawer);
+
+            double fade = 1 - (double)i / length;
+            int level = (int)Math.round(fade * (FADE_LEVELS - 1));
+            Path.appendRect(this.connectors[level], this.drawer);
+            this.connectorCounts[level]++;
         }
 
         // draw segment centers
-        for (Segment segment : this.segments) {
-            if (segment == this.segments[this.segments.length - 1]) {
-                g.setColor(Color.GREEN);
-            } else {
-                g.setColor(segment.getColor(0));
+        this.drawer.setSize(this.size * 2, this.size * 2);
+        int lastX = Integer.MIN_VALUE;
+        int lastY = Integer.MIN_VALUE;
+        for (int i = start; i < length; i++) {
+            int index = this.index(i);
+            int x = (int)this.xs[index] - this.size;
+            int y = (int)this.ys[index] - this.size;
+            this.drawer.setLocation(x, y);
+
+            if (i == length - 1) {
+                this.goal.setBounds(this.drawer);
+                continue;
             }
-            this.drawer.setSize(this.size * 2, this.size * 2);
-            this.drawer.setLocation(
-                (int)segment.getPos(this.temp).getX() - this.size, 
-                (int)segment.getPos(this.temp).getY() - this.size
-            );
-            g.fill(this.drawer);
+
+            // same pixel as previous center
+            if (simplify && x == lastX && y == lastY) {
+                continue;
+            }
+            lastX = x;
+            lastY = y;
+
+            Path.appendRect(this.centers, this.drawer);
+            this.centerCount++;
         }
 
+        this.dirty = false;
+        this.batchThreshold = threshold;
+    }
+
+    /**
+     * Creates empty batch with room for given amount of rectangles.
+     */
+    private static Path2D.Float newBatch(int rects) {
+        // every rectangle is move, three lines and close
+        return new Path2D.Float(Path2D.WIND_NON_ZERO, Math.max(rects * 5, 10));
+    }
+
+    /**
+     * Appends rectangle to the batch without allocating path iterator.
+     */
+    private static void appendRect(Path2D.Float batch, Rectangle rect) {
+        batch.moveTo(rect.x, rect.y);
+        batch.lineTo(rect.x + rect.width, rect.y);
+        batch.lineTo(rect.x + rect.width, rect.y + rect.height);
+        batch.lineTo(rect.x, rect.y + rect.height);
+        batch.closePath();
+    }
+
+    /**
+     * @return - level of detail used for drawing or null if path is 
+     * always drawn whole.
+     */
+    public LevelOfDetail getLevelOfDetail() {
+        return this.levelOfDetail;
+    }
+
+    public void setLevelOfDetail(LevelOfDetail levelOfDetail) {
+        this.levelOfDetail = levelOfDetail;
     }
 
     /**
-     * setColor extended to affect all owned segments
+     * setColor extended to also recolor the segments
      */
     @Override
     public void setColor(Color color) {
         super.setColor(color);
-        
-        for (Segment segment : this.segments) {
-            segment.setColor(color);
+        this.color = color.getRGB();
+        this.fillPalette();
+    }
+
+    /**
+     * Precomputes the color faded towards transparent so that drawing 
+     * does not have to interpolate and look up colors every frame.
+     */
+    private void fillPalette() {
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            this.palette[i] = Segment.fade(this.color, (double)i / (PALETTE_SIZE - 1));
         }
     }
 
@@ -269,47 +533,51 @@ public class Path extends CanvasObject {
      * Restarts the state of path.
      */
     public void restart() {
-        this.current = this.segments.length - 1;
-        this.temp.set(0, 0);
-        for (Segment segment : this.segments) {
-            segment.setPos(this.temp);
+        this.stopLookahead();
+        this.dirty = true;
+        this.invalidate();
+        this.head = 0;
+        this.current = this.xs.length - 1;
+        for (int i = 0; i < this.xs.length; i++) {
+            this.xs[i] = 0;
+            this.ys[i] = 0;
         }
+        this.xIndex.set(this.xs, this.xs.length);
+        this.yIndex.set(this.ys, this.ys.length);
     }
 
     /**
      * Returns the correct direction player should move.
      */
     public Direction getCorrectDirection() {
-        return this.segments[this.current].getDirection();
+        return DIRECTIONS[this.directions[this.index(this.current)]];
     }
 
     /**
-     * Segment glues up information to be stored in array.
+     * Segment is a read only view of one path segment, 
+     * it can be filled with {@link Path#getSegment(int, Segment)}.
      */
     public static class Segment {
         private final Vec pos;
         
         private Direction direction;
         private int color;
-        
-        public void setDirection(Path.Direction direction) {
-            this.direction = direction;
-        }
-
-        public void setColor(Color color) {
-            this.color = color.getRGB();
-        }
 
         /**
-         * Creates a new segment that is black and heading UP.
-         * @param pos - Initial position.
+         * Creates a new segment view that is black and heading UP.
          */
-        public Segment(Vec pos) {
+        public Segment() {
             this.color = 0xFF000000;
-            this.pos = pos;
+            this.pos = new Vec();
             this.direction = Direction.UP;
         }
 
+        void set(double x, double y, Direction direction, int color) {
+            this.pos.set(x, y);
+            this.direction = direction;
+            this.color = color;
+        }
+
         /**
          * Sets the position of the segment.
          * @param pos - position that gets set, can be null 
@@ -323,14 +591,6 @@ public class Path extends CanvasObject {
             return target.set(this.pos);
         }
 
-        public void setPos(Vec pos) {
-            this.pos.set(pos);
-        }
-
-        public void shift(Vec delta) {
-            this.pos.add(delta);
-        }
-
         public Direction getDirection() {
             return this.direction;
         }
@@ -341,7 +601,16 @@ public class Path extends CanvasObject {
          * @param fade is assumed to be from 0 to 1.
          */
         public Color getColor(double fade) {
-            return Colors.create(Colors.lerp(this.color, this.color & 0x00FFFFFF, (int)(fade * 225)));
+            return Segment.fade(this.color, fade);
+        }
+
+        /**
+         * Returns color interpolated towards transparent.
+         * 
+         * @param fade is assumed to be from 0 to 1.
+         */
+        static Color fade(int color, double fade) {
+            return Colors.create(Colors.lerp(color, color & 0x00FFFFFF, (int)(fade * 225)));
         }
     }
 
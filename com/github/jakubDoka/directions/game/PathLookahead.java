@@ -0,0 +1,118 @@
+package com.github.jakubDoka.directions.game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PathLookahead generates path steps ahead of the player on its own thread.
+ * It works on a snapshot of the path and pushes new steps to the 
+ * {@link StepQueue} that path consumes when it expands. If the queue runs 
+ * dry, step is generated synchronously on the calling thread.
+ * 
+ * Generator is shared with the snapshot so each step is produced only once
+ * and the path looks the same as if it was generated synchronously.
+ */
+public class PathLookahead implements Runnable {
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private final Path generator;
+    private final StepQueue queue;
+    private final Thread thread;
+
+    private volatile boolean running;
+    private volatile int stalls;
+    private volatile long produced;
+
+    /**
+     * Creates the lookahead but does not start the thread.
+     * @param path - path to take the snapshot of.
+     * @param depth - how many steps can be generated ahead.
+     */
+    public PathLookahead(Path path, int depth) {
+        this.generator = new Path(path);
+        this.queue = new StepQueue(depth);
+        this.thread = new Thread(this, "path-lookahead");
+        this.thread.setDaemon(true);
+        this.stalls = 0;
+        this.produced = 0;
+    }
+
+    public void start() {
+        this.running = true;
+        this.thread.start();
+    }
+
+    /**
+     * Stops the producer thread and waits until it stops touching the
+     * generator, so random state is not advanced after this returns.
+     * Lookahead cannot be restarted.
+     */
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+        try {
+            // one step takes microseconds, timeout only guards against a stuck thread
+            this.thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            if (this.queue.isFull()) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            synchronized (this.generator) {
+                this.generator.expand();
+                this.generator.offerNewest(this.queue);
+            }
+            this.produced++;
+        }
+    }
+
+    /**
+     * Applies next step to the path. Falls back to generating the step 
+     * on calling thread if producer did not keep up.
+     */
+    public void next(Path target) {
+        if (!this.queue.poll(target)) {
+            this.stalls++;
+            // producer offers under the same lock so the order of steps is kept
+            synchronized (this.generator) {
+                if (!this.queue.poll(target)) {
+                    this.generator.expand();
+                    this.generator.pushNewest(target);
+                }
+            }
+        }
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Returns amount of steps currently generated ahead.
+     */
+    public int getDepth() {
+        return this.queue.size();
+    }
+
+    public int getCapacity() {
+        return this.queue.getCapacity();
+    }
+
+    /**
+     * Returns how many times the queue was empty when step was needed.
+     */
+    public int getStalls() {
+        return this.stalls;
+    }
+
+    /**
+     * Returns how many steps producer thread generated.
+     */
+    public long getProduced() {
+        return this.produced;
+    }
+}
@@ -1,19 +1,21 @@
 package com.github.jakubDoka.directions.game;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 
+import com.github.jakubDoka.directions.ui.Camera;
 import com.github.jakubDoka.directions.ui.CanvasObject;
+import com.github.jakubDoka.directions.ui.RenderList;
 import com.github.jakubDoka.directions.ui.Vec;
 
 /**
  * Player is merely draws it self on the screen.
  * Its isolated class to make things more organized.
+ * Position is in world space, same as the path.
  */
 public class Player extends CanvasObject {
     private static final double MARGIN = 0.25; 
     
-    private final Vec temp;
     private final Rectangle drawer;
+    private final Rectangle margin;
 
     private final Vec position;
 
@@ -24,7 +26,12 @@ public class Player extends CanvasObject {
      */
     public Player(int size, double x, double y) {
         size = size / 3 * 2;
-        this.temp = new Vec();
+        this.margin = new Rectangle(
+            (int)(Directions.WIDTH * MARGIN),
+            (int)(Directions.HEIGHT * MARGIN),
+            (int)(Directions.WIDTH - Directions.WIDTH * MARGIN * 2),
+            (int)(Directions.HEIGHT - Directions.HEIGHT * MARGIN * 2)
+        );
         this.position = new Vec(x - size, y - size);
         this.drawer = new Rectangle(
             0, 
@@ -35,36 +42,22 @@ public class Player extends CanvasObject {
     }
 
     /**
-     * Move moves the player by vec.
+     * Move moves the player by vec in world space. Camera is shifted 
+     * so that player stays inside the screen margin.
      * @param shift - the shift
+     * @param camera - camera that follows the player
      */
-    public Vec move(Vec shift) {
-        Vec nextPosition = this.temp.set(this.position).sub(shift);
-        double realMoveX = Math.min(
-            Math.max(
-                nextPosition.getX(), 
-                Directions.WIDTH * MARGIN
-            ), 
-            Directions.WIDTH - Directions.WIDTH * MARGIN
-        );
-        double realMoveY = Math.min(
-            Math.max(
-                nextPosition.getY(), 
-                Directions.HEIGHT * MARGIN
-            ), 
-            Directions.HEIGHT - Directions.HEIGHT * MARGIN
-        );
-        this.position.set(realMoveX, realMoveY);
-        this.temp.sub(this.position);
-
-        return this.temp;
+    public void move(Vec shift, Camera camera) {
+        this.position.sub(shift);
+        camera.follow(this.position, this.margin);
+        this.invalidate();
     }
 
     /**
      * Draws the player on the screen.
      */
     @Override
-    public void drawImpl(Graphics2D g) {
+    public void drawImpl(RenderList g) {
         this.drawer.setLocation((int)this.position.getX(), (int)this.position.getY());
         g.setColor(this.getColor());
         g.fill(this.drawer);
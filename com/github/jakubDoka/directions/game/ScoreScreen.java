@@ -72,6 +72,7 @@ public class ScoreScreen extends Panel {
         this.addItem(this.scoreText);
         this.addItem(this.bestScoreText);
         
+        this.setCached(true);
         this.setVisible(false);
     }
 
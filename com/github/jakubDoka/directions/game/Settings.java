@@ -191,7 +191,7 @@ public class Settings extends Panel {
         this.addItem(this.preview);
         this.addItem(this.controls);
         
-
+        this.setCached(true);
         this.setVisible(false);
     }
 
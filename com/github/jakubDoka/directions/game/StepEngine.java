@@ -0,0 +1,29 @@
+package com.github.jakubDoka.directions.game;
+
+/**
+ * StepEngine selects the algorithm path uses to find next step.
+ */
+public enum StepEngine {
+    /**
+     * Gaps between sorted coordinates, see {@link CoordinateIndex}.
+     */
+    SORTED,
+    /**
+     * Free cells of quantized coordinates, see {@link OccupancyGrid}.
+     */
+    GRID;
+
+    /**
+     * Creates empty index for one axis of the path.
+     * @param length - amount of segments path has.
+     * @param size - size of the path.
+     */
+    public AxisIndex create(int length, int size) {
+        switch (this) {
+            case GRID:
+                return new OccupancyGrid(length, size);
+            default:
+                return new CoordinateIndex(length, size);
+        }
+    }
+}
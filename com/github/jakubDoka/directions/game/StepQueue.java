@@ -0,0 +1,83 @@
+package com.github.jakubDoka.directions.game;
+
+/**
+ * StepQueue is bounded lock-free queue of generated path steps. It is 
+ * safe only for one producer and one consumer thread. Steps are stored 
+ * in primitive arrays so nothing is allocated while the queue is used.
+ */
+public class StepQueue {
+    private final double[] xs;
+    private final double[] ys;
+    private final byte[] directions;
+    private final int mask;
+
+    // written only by consumer
+    private volatile long head;
+    // written only by producer
+    private volatile long tail;
+
+    /**
+     * Creates an empty queue.
+     * @param capacity - minimal capacity, it is rounded up to power of two.
+     */
+    public StepQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.directions = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds the step to the queue. Only producer can call this.
+     * @param x - x coordinate of the new segment.
+     * @param y - y coordinate of the new segment.
+     * @param direction - direction ordinal of the segment preceding new one.
+     * @return - false if queue is full.
+     */
+    public boolean offer(double x, double y, byte direction) {
+        long localTail = this.tail;
+        if (localTail - this.head > this.mask) {
+            return false;
+        }
+        int index = (int)localTail & this.mask;
+        this.xs[index] = x;
+        this.ys[index] = y;
+        this.directions[index] = direction;
+        // volatile write publishes the slot
+        this.tail = localTail + 1;
+        return true;
+    }
+
+    /**
+     * Removes the oldest step and applies it to the path. Only 
+     * consumer can call this.
+     * @return - false if queue is empty.
+     */
+    public boolean poll(Path target) {
+        long localHead = this.head;
+        if (localHead == this.tail) {
+            return false;
+        }
+        int index = (int)localHead & this.mask;
+        target.push(this.xs[index], this.ys[index], this.directions[index]);
+        // volatile write releases the slot
+        this.head = localHead + 1;
+        return true;
+    }
+
+    /**
+     * Returns amount of steps waiting in the queue.
+     */
+    public int size() {
+        return (int)(this.tail - this.head);
+    }
+
+    public boolean isFull() {
+        return this.size() > this.mask;
+    }
+
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+}
@@ -1,13 +1,16 @@
 package com.github.jakubDoka.directions.game;
-import java.lang.reflect.Array;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Util is a stateless class that holds some utility methods. 
- * All static.
+ * Util holds some utility methods, all static and stateless. Only
+ * exception is {@link Sorter}, which keeps its scratch buffers so
+ * repeated sorting does not allocate.
  */
 public class Util {
     /**
-     * Sort sorts array by split-sort algorithm. 
+     * Sort sorts array by split-sort algorithm. Sort is stable.
      *
      * This is my own non-recursive implementations, only thing i have taken 
      * is the main principle which preserves O(N log N) complexity.
@@ -15,41 +18,693 @@ public class Util {
      * @param array - Array to sort.
      * @param comparator - Lambda that compares the elements.
      */
-    @SuppressWarnings("unchecked")
     public static <T> void sort(T[] array, IComparator<? super T> comparator) {
-        T[] original = array;
+        new Sorter().sort(array, comparator);
+    }
+
+    /**
+     * Sorts array of doubles in ascending order, see {@link #sort(Object[], IComparator)}.
+     */
+    public static void sort(double[] array) {
+        new Sorter().sort(array, array.length);
+    }
+
+    /**
+     * Sorts array of ints in ascending order, see {@link #sort(Object[], IComparator)}.
+     */
+    public static void sort(int[] array) {
+        new Sorter().sort(array, array.length);
+    }
+
+    /**
+     * Sorts the indices so that keys they point to are in ascending order.
+     * Keys are not moved. Indices pointing to equal keys keep their order.
+     */
+    public static void sortIndices(double[] keys, int[] indices) {
+        new Sorter().sortIndices(keys, indices, indices.length);
+    }
+
+    /**
+     * Same as {@link #sort(Object[], IComparator)} but adaptive, 
+     * see {@link Sorter#sortAdaptive(Object[], IComparator)}.
+     */
+    public static <T> void adaptiveSort(T[] array, IComparator<? super T> comparator) {
+        new Sorter().sortAdaptive(array, comparator);
+    }
+
+    /**
+     * Arrays up to this length are sorted by single task in {@link #parallelSort}.
+     */
+    public static final int PARALLEL_CUTOFF = 1 << 13;
+    /**
+     * Runs up to this length are sorted by insertion sort before merging.
+     */
+    public static final int INSERTION_CUTOFF = 32;
+    /**
+     * Bits of key {@link Sorter#sortQuantized} sorts by in one pass.
+     */
+    public static final int RADIX_BITS = 8;
+
+    /**
+     * Same as {@link #parallelSort(Object[], IComparator, int)} with 
+     * {@link #PARALLEL_CUTOFF}.
+     */
+    public static <T> void parallelSort(T[] array, IComparator<? super T> comparator) {
+        Util.parallelSort(array, comparator, Util.PARALLEL_CUTOFF);
+    }
+
+    /**
+     * Sorts array on common fork-join pool. Array is split in halves until 
+     * parts are shorter then cutoff, parts are then sorted sequentially and
+     * merged back on the way up. Sort is stable, same as {@link #sort}.
+     *
+     * Use it only for big arrays, for small ones the task overhead 
+     * is bigger then the gain.
+     *
+     * @param array - Array to sort.
+     * @param comparator - Lambda that compares the elements.
+     * @param cutoff - Parts up to this length are not split any further.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void parallelSort(T[] array, IComparator<? super T> comparator, int cutoff) {
         if (array.length < 2) {
             return;
         }
-        // managed to allocate just one array of equal size
-        T[] temp = (T[])Array.newInstance(array[0].getClass(), array.length);
-        int stride = 2;
-        while (stride / 2 < array.length) {
-            int halfStride = stride / 2;
-            for (int i = 0; i < array.length; i += stride) {
-                int cursor = i;
-                int a = i;
-                int aBound = Math.min(i + halfStride, array.length);
-                int b = aBound;
-                int bBound = Math.min(i + stride, array.length);
-                while (cursor < bBound) {
-                    if ((b < bBound && comparator.compare(array[a], array[b]) || a >= aBound)) {
-                        temp[cursor++] = array[b++];
-                    } else {
-                        temp[cursor++] = array[a++];
+        T[] temp = (T[])new Object[array.length];
+        cutoff = Math.max(cutoff, Util.INSERTION_CUTOFF);
+        if (array.length <= cutoff) {
+            Util.sortRange(array, temp, 0, array.length, comparator);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new MergeTask<>(array, temp, 0, array.length, cutoff, comparator));
+    }
+
+    /**
+     * Sorts range of array. Short runs are insertion sorted first
+     * and then merged the same way as {@link #sort} does it.
+     * Temp has to be at least as long as the range end.
+     */
+    private static <T> void sortRange(T[] array, T[] temp, int from, int to, IComparator<? super T> comparator) {
+        for (int i = from; i < to; i += Util.INSERTION_CUTOFF) {
+            int bound = Math.min(i + Util.INSERTION_CUTOFF, to);
+            for (int j = i + 1; j < bound; j++) {
+                T value = array[j];
+                int k = j;
+                // only strictly greater elements move, so equal ones keep the order
+                while (k > i && comparator.compare(array[k - 1], value)) {
+                    array[k] = array[k - 1];
+                    k--;
+                }
+                array[k] = value;
+            }
+        }
+
+        for (int stride = Util.INSERTION_CUTOFF; stride < to - from; stride *= 2) {
+            for (int i = from; i < to; i += stride * 2) {
+                int mid = Math.min(i + stride, to);
+                Util.merge(array, temp, i, mid, Math.min(i + stride * 2, to), comparator);
+            }
+        }
+    }
+
+    /**
+     * Merges two sorted neighboring ranges of array trough temp.
+     * Elements from the left range go first if they are equal.
+     */
+    private static <T> void merge(T[] array, T[] temp, int from, int mid, int to, IComparator<? super T> comparator) {
+        if (mid >= to || !comparator.compare(array[mid - 1], array[mid])) {
+            // already in order
+            return;
+        }
+        int cursor = from;
+        int a = from;
+        int b = mid;
+        while (cursor < to) {
+            if ((b < to && comparator.compare(array[a], array[b]) || a >= mid)) {
+                temp[cursor++] = array[b++];
+            } else {
+                temp[cursor++] = array[a++];
+            }
+        }
+        System.arraycopy(temp, from, array, from, to - from);
+    }
+
+    /**
+     * MergeTask sorts range of array by sorting halves in parallel and 
+     * merging them. Halves write to disjoint parts of temp so they do not
+     * need any synchronization.
+     */
+    private static class MergeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] array;
+        private final T[] temp;
+        private final int from;
+        private final int to;
+        private final int cutoff;
+        private final IComparator<? super T> comparator;
+
+        MergeTask(T[] array, T[] temp, int from, int to, int cutoff, IComparator<? super T> comparator) {
+            this.array = array;
+            this.temp = temp;
+            this.from = from;
+            this.to = to;
+            this.cutoff = cutoff;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.cutoff) {
+                Util.sortRange(this.array, this.temp, this.from, this.to, this.comparator);
+                return;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            RecursiveAction.invokeAll(
+                new MergeTask<>(this.array, this.temp, this.from, mid, this.cutoff, this.comparator),
+                new MergeTask<>(this.array, this.temp, mid, this.to, this.cutoff, this.comparator)
+            );
+            Util.merge(this.array, this.temp, this.from, mid, this.to, this.comparator);
+        }
+    }
+
+    /**
+     * Sorter does the same as static sort methods but it owns the scratch
+     * buffers and reuses them between calls, buffers only grow when
+     * bigger array comes. Once warmed up, sorting does not allocate.
+     *
+     * Sorter is not thread safe.
+     */
+    public static class Sorter {
+        private Object[] objects;
+        private double[] doubles;
+        private int[] ints;
+        private int[] runs;
+        private int[] keys;
+        private final int[] counts;
+        private boolean verify;
+
+        /**
+         * Creates sorter with empty buffers.
+         */
+        public Sorter() {
+            this.objects = new Object[0];
+            this.doubles = new double[0];
+            this.ints = new int[0];
+            this.runs = new int[0];
+            this.keys = new int[0];
+            this.counts = new int[1 << Util.RADIX_BITS];
+        }
+
+        /**
+         * When verify is on, {@link #sortQuantized} also sorts the copy of 
+         * the input with comparison sort and throws IllegalStateException
+         * if the results differ. It allocates so use it only for testing.
+         */
+        public void setVerify(boolean verify) {
+            this.verify = verify;
+        }
+
+        /**
+         * Sorts the array, see {@link Util#sort(Object[], IComparator)}.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> void sort(T[] array, IComparator<? super T> comparator) {
+            final int length = array.length;
+            if (length < 2) {
+                return;
+            }
+            if (this.objects.length < length) {
+                this.objects = new Object[Sorter.grow(this.objects.length, length)];
+            }
+
+            T[] original = array;
+            // scratch is never visible outside, so erasure makes this safe
+            T[] temp = (T[])this.objects;
+            int stride = 2;
+            while (stride / 2 < length) {
+                int halfStride = stride / 2;
+                for (int i = 0; i < length; i += stride) {
+                    int cursor = i;
+                    int a = i;
+                    int aBound = Math.min(i + halfStride, length);
+                    int b = aBound;
+                    int bBound = Math.min(i + stride, length);
+                    while (cursor < bBound) {
+                        if ((b < bBound && comparator.compare(array[a], array[b]) || a >= aBound)) {
+                            temp[cursor++] = array[b++];
+                        } else {
+                            temp[cursor++] = array[a++];
+                        }
                     }
                 }
+
+                T[] swap = array;
+                array = temp;
+                temp = swap;
+
+                stride *= 2;
+            }
+
+            if (array != original) {
+                System.arraycopy(array, 0, original, 0, length);
+            }
+
+            // do not keep sorted objects alive trough the scratch buffer
+            java.util.Arrays.fill(this.objects, 0, length, null);
+        }
+
+        /**
+         * Sorts the array stably, but unlike {@link #sort(Object[], IComparator)} 
+         * it does not start merging from single elements. It finds runs that 
+         * are already ascending or strictly descending (those are reversed), 
+         * runs shorter then {@link Util#INSERTION_CUTOFF} are extended with 
+         * insertion sort and only the runs are merged. Sorted or nearly sorted 
+         * arrays take close to linear time, random ones about the same as 
+         * the plain sort.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> void sortAdaptive(T[] array, IComparator<? super T> comparator) {
+            final int length = array.length;
+            if (length < 2) {
+                return;
             }
+            if (this.objects.length < length) {
+                this.objects = new Object[Sorter.grow(this.objects.length, length)];
+            }
+            this.ensureRuns(length);
+
+            int[] runs = this.runs;
+            int count = 0;
+            runs[count++] = 0;
+            int start = 0;
+            while (start < length) {
+                int end = start + 1;
+                if (end < length && comparator.compare(array[start], array[end])) {
+                    // only strictly descending, reversing equal elements would break stability
+                    while (end + 1 < length && comparator.compare(array[end], array[end + 1])) {
+                        end++;
+                    }
+                    end++;
+                    for (int a = start, b = end - 1; a < b; a++, b--) {
+                        T swap = array[a];
+                        array[a] = array[b];
+                        array[b] = swap;
+                    }
+                } else {
+                    while (end < length && !comparator.compare(array[end - 1], array[end])) {
+                        end++;
+                    }
+                }
 
-            T[] swap = array;
-            array = temp;
-            temp = swap;
+                int bound = Math.min(start + Util.INSERTION_CUTOFF, length);
+                for (; end < bound; end++) {
+                    T value = array[end];
+                    int k = end;
+                    while (k > start && comparator.compare(array[k - 1], value)) {
+                        array[k] = array[k - 1];
+                        k--;
+                    }
+                    array[k] = value;
+                }
 
-            stride *= 2;
+                runs[count++] = end;
+                start = end;
+            }
+
+            T[] original = array;
+            T[] temp = (T[])this.objects;
+            // count is amount of run bounds, there is one run less
+            while (count > 2) {
+                int merged = 0;
+                int r = 0;
+                for (; r + 2 < count; r += 2) {
+                    int from = runs[r];
+                    int mid = runs[r + 1];
+                    int to = runs[r + 2];
+                    int cursor = from;
+                    int a = from;
+                    int b = mid;
+                    while (cursor < to) {
+                        if ((b < to && comparator.compare(array[a], array[b]) || a >= mid)) {
+                            temp[cursor++] = array[b++];
+                        } else {
+                            temp[cursor++] = array[a++];
+                        }
+                    }
+                    runs[merged++] = from;
+                }
+                if (r + 1 < count) {
+                    // odd run has no pair in this pass
+                    System.arraycopy(array, runs[r], temp, runs[r], length - runs[r]);
+                    runs[merged++] = runs[r];
+                }
+                runs[merged++] = length;
+                count = merged;
+
+                T[] swap = array;
+                array = temp;
+                temp = swap;
+            }
+
+            if (array != original) {
+                System.arraycopy(array, 0, original, 0, length);
+            }
+
+            java.util.Arrays.fill(this.objects, 0, length, null);
+        }
+
+        /**
+         * Sorts first length elements of array in ascending order,
+         * see {@link #sortAdaptive(Object[], IComparator)}.
+         */
+        public void sortAdaptive(double[] array, int length) {
+            if (length < 2) {
+                return;
+            }
+            if (this.doubles.length < length) {
+                this.doubles = new double[Sorter.grow(this.doubles.length, length)];
+            }
+            this.ensureRuns(length);
+
+            int[] runs = this.runs;
+            int count = 0;
+            runs[count++] = 0;
+            int start = 0;
+            while (start < length) {
+                int end = start + 1;
+                if (end < length && array[start] > array[end]) {
+                    while (end + 1 < length && array[end] > array[end + 1]) {
+                        end++;
+                    }
+                    end++;
+                    for (int a = start, b = end - 1; a < b; a++, b--) {
+                        double swap = array[a];
+                        array[a] = array[b];
+                        array[b] = swap;
+                    }
+                } else {
+                    while (end < length && array[end - 1] <= array[end]) {
+                        end++;
+                    }
+                }
+
+                int bound = Math.min(start + Util.INSERTION_CUTOFF, length);
+                for (; end < bound; end++) {
+                    double value = array[end];
+                    int k = end;
+                    while (k > start && array[k - 1] > value) {
+                        array[k] = array[k - 1];
+                        k--;
+                    }
+                    array[k] = value;
+                }
+
+                runs[count++] = end;
+                start = end;
+            }
+
+            double[] original = array;
+            double[] temp = this.doubles;
+            while (count > 2) {
+                int merged = 0;
+                int r = 0;
+                for (; r + 2 < count; r += 2) {
+                    int from = runs[r];
+                    int mid = runs[r + 1];
+                    int to = runs[r + 2];
+                    int cursor = from;
+                    int a = from;
+                    int b = mid;
+                    while (cursor < to) {
+                        if ((b < to && array[a] > array[b] || a >= mid)) {
+                            temp[cursor++] = array[b++];
+                        } else {
+                            temp[cursor++] = array[a++];
+                        }
+                    }
+                    runs[merged++] = from;
+                }
+                if (r + 1 < count) {
+                    System.arraycopy(array, runs[r], temp, runs[r], length - runs[r]);
+                    runs[merged++] = runs[r];
+                }
+                runs[merged++] = length;
+                count = merged;
+
+                double[] swap = array;
+                array = temp;
+                temp = swap;
+            }
+
+            if (array != original) {
+                System.arraycopy(array, 0, original, 0, length);
+            }
+        }
+
+        /**
+         * Sorts first length elements of array in ascending order without
+         * comparing them. It works only if all values are whole multiples 
+         * of quantum, values are turned to integer keys and sorted by LSD 
+         * radix sort, {@link Util#RADIX_BITS} per pass. Amount of passes 
+         * depends on the range of keys, not on the length. 
+         *
+         * If some value is not a multiple of quantum or the range is too big,
+         * array is sorted by {@link #sortAdaptive(double[], int)} instead.
+         *
+         * @return - true if radix sort was used.
+         */
+        public boolean sortQuantized(double[] array, int length, double quantum) {
+            if (length < 2) {
+                return true;
+            }
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < length; i++) {
+                double key = array[i] / quantum;
+                // second check makes sure the value can be restored from the key exactly, 
+                // NaN and infinities fail the first one
+                if (key != Math.rint(key) || key * quantum != array[i]) {
+                    this.sortAdaptive(array, length);
+                    return false;
+                }
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+            }
+            if (max - min > Integer.MAX_VALUE) {
+                this.sortAdaptive(array, length);
+                return false;
+            }
+
+            double[] expected = null;
+            if (this.verify) {
+                expected = java.util.Arrays.copyOf(array, length);
+                this.sortAdaptive(expected, length);
+            }
+
+            if (this.keys.length < length) {
+                this.keys = new int[Sorter.grow(this.keys.length, length)];
+            }
+            if (this.ints.length < length) {
+                this.ints = new int[Sorter.grow(this.ints.length, length)];
+            }
+
+            int[] keys = this.keys;
+            int[] temp = this.ints;
+            for (int i = 0; i < length; i++) {
+                keys[i] = (int)(array[i] / quantum - min);
+            }
+
+            final int range = (int)(max - min);
+            final int mask = (1 << Util.RADIX_BITS) - 1;
+            int[] counts = this.counts;
+            for (int shift = 0; shift < Integer.SIZE && (range >>> shift) != 0; shift += Util.RADIX_BITS) {
+                java.util.Arrays.fill(counts, 0);
+                for (int i = 0; i < length; i++) {
+                    counts[(keys[i] >>> shift) & mask]++;
+                }
+                int offset = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    int count = counts[i];
+                    counts[i] = offset;
+                    offset += count;
+                }
+                // going forward keeps equal digits in order, which is what makes LSD work
+                for (int i = 0; i < length; i++) {
+                    int key = keys[i];
+                    temp[counts[(key >>> shift) & mask]++] = key;
+                }
+
+                int[] swap = keys;
+                keys = temp;
+                temp = swap;
+            }
+
+            for (int i = 0; i < length; i++) {
+                array[i] = (keys[i] + min) * quantum;
+            }
+
+            if (expected != null) {
+                for (int i = 0; i < length; i++) {
+                    if (expected[i] != array[i]) {
+                        throw new IllegalStateException(String.format(
+                            "radix sort mismatch at %d: %f != %f", i, array[i], expected[i]
+                        ));
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Sorts first length elements of array in ascending order.
+         */
+        public void sort(double[] array, int length) {
+            if (length < 2) {
+                return;
+            }
+            if (this.doubles.length < length) {
+                this.doubles = new double[Sorter.grow(this.doubles.length, length)];
+            }
+
+            double[] original = array;
+            double[] temp = this.doubles;
+            int stride = 2;
+            while (stride / 2 < length) {
+                int halfStride = stride / 2;
+                for (int i = 0; i < length; i += stride) {
+                    int cursor = i;
+                    int a = i;
+                    int aBound = Math.min(i + halfStride, length);
+                    int b = aBound;
+                    int bBound = Math.min(i + stride, length);
+                    while (cursor < bBound) {
+                        if ((b < bBound && array[a] > array[b] || a >= aBound)) {
+                            temp[cursor++] = array[b++];
+                        } else {
+                            temp[cursor++] = array[a++];
+                        }
+                    }
+                }
+
+                double[] swap = array;
+                array = temp;
+                temp = swap;
+
+                stride *= 2;
+            }
+
+            if (array != original) {
+                System.arraycopy(array, 0, original, 0, length);
+            }
+        }
+
+        /**
+         * Sorts first length elements of array in ascending order.
+         */
+        public void sort(int[] array, int length) {
+            if (length < 2) {
+                return;
+            }
+            if (this.ints.length < length) {
+                this.ints = new int[Sorter.grow(this.ints.length, length)];
+            }
+
+            int[] original = array;
+            int[] temp = this.ints;
+            int stride = 2;
+            while (stride / 2 < length) {
+                int halfStride = stride / 2;
+                for (int i = 0; i < length; i += stride) {
+                    int cursor = i;
+                    int a = i;
+                    int aBound = Math.min(i + halfStride, length);
+                    int b = aBound;
+                    int bBound = Math.min(i + stride, length);
+                    while (cursor < bBound) {
+                        if ((b < bBound && array[a] > array[b] || a >= aBound)) {
+                            temp[cursor++] = array[b++];
+                        } else {
+                            temp[cursor++] = array[a++];
+                        }
+                    }
+                }
+
+                int[] swap = array;
+                array = temp;
+                temp = swap;
+
+                stride *= 2;
+            }
+
+            if (array != original) {
+                System.arraycopy(array, 0, original, 0, length);
+            }
+        }
+
+        /**
+         * Sorts first length indices so that keys they point to are in
+         * ascending order, see {@link Util#sortIndices(double[], int[])}.
+         */
+        public void sortIndices(double[] keys, int[] indices, int length) {
+            if (length < 2) {
+                return;
+            }
+            if (this.ints.length < length) {
+                this.ints = new int[Sorter.grow(this.ints.length, length)];
+            }
+
+            int[] original = indices;
+            int[] temp = this.ints;
+            int stride = 2;
+            while (stride / 2 < length) {
+                int halfStride = stride / 2;
+                for (int i = 0; i < length; i += stride) {
+                    int cursor = i;
+                    int a = i;
+                    int aBound = Math.min(i + halfStride, length);
+                    int b = aBound;
+                    int bBound = Math.min(i + stride, length);
+                    while (cursor < bBound) {
+                        if ((b < bBound && keys[indices[a]] > keys[indices[b]] || a >= aBound)) {
+                            temp[cursor++] = indices[b++];
+                        } else {
+                            temp[cursor++] = indices[a++];
+                        }
+                    }
+                }
+
+                int[] swap = indices;
+                indices = temp;
+                temp = swap;
+
+                stride *= 2;
+            }
+
+            if (indices != original) {
+                System.arraycopy(indices, 0, original, 0, length);
+            }
+        }
+
+        /**
+         * Makes sure run bounds fit, every run but the last one
+         * is at least {@link Util#INSERTION_CUTOFF} long.
+         */
+        private void ensureRuns(int length) {
+            int required = length / Util.INSERTION_CUTOFF + 2;
+            if (this.runs.length < required) {
+                this.runs = new int[Sorter.grow(this.runs.length, required)];
+            }
         }
 
-        if (array != original) {
-            System.arraycopy(array, 0, original, 0, array.length);
+        /**
+         * Returns new buffer size, at least double so that growing
+         * buffer does not allocate every call.
+         */
+        private static int grow(int current, int required) {
+            return Math.max(required, current * 2);
         }
     }
 
@@ -3,7 +3,6 @@ package com.github.jakubDoka.directions.ui;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Point;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 
@@ -55,6 +54,7 @@ public class Button extends CanvasObject {
      */
     public boolean pressed(Canvas canvas) {
         Point localMouse = canvas.getMousePos(this.mouse);
+        boolean wasPressed = this.isPressed;
 
         this.isPressed = this.isPressed || (
             this.bounds.contains(localMouse) && 
@@ -64,8 +64,12 @@ public class Button extends CanvasObject {
         if (this.isPressed) {
             if (!canvas.isMousePressed(MouseEvent.BUTTON1)) {                    
                 this.isPressed = false;
+                this.invalidate();
                 return this.bounds.contains(localMouse);
             }
+            if (!wasPressed) {
+                this.invalidate();
+            }
             return false;
         }
         
@@ -73,7 +77,13 @@ public class Button extends CanvasObject {
     }
 
     @Override
-    public void drawImpl(Graphics2D g) {
+    public Rectangle getBounds(Rectangle target) {
+        target.setBounds(this.bounds);
+        return target;
+    }
+
+    @Override
+    public void drawImpl(RenderList g) {
         g.setColor(this.isPressed ? this.pressed : this.idle);
         g.fill(this.bounds);
         g.setColor(this.fontColor);
@@ -0,0 +1,69 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Rectangle;
+
+/**
+ * Camera holds world to screen offset. Objects can keep their positions
+ * in world space and camera moves them all at once when drawing by
+ * translating the graphics.
+ */
+public class Camera {
+    private final Vec offset;
+
+    private int appliedX;
+    private int appliedY;
+
+    /**
+     * Creates a camera with no offset, world space is the screen space.
+     */
+    public Camera() {
+        this.offset = new Vec();
+    }
+
+    public Vec getOffset(Vec target) {
+        return target.set(this.offset);
+    }
+
+    public void setOffset(double x, double y) {
+        this.offset.set(x, y);
+    }
+
+    /**
+     * Moves the world by given amount on the screen.
+     */
+    public void shift(double x, double y) {
+        this.offset.set(this.offset.getX() + x, this.offset.getY() + y);
+    }
+
+    /**
+     * Shifts the camera so that target position stays inside
+     * area on the screen.
+     * @param target - position in world space.
+     * @param area - area in screen space.
+     */
+    public void follow(Vec target, Rectangle area) {
+        double screenX = target.getX() + this.offset.getX();
+        double screenY = target.getY() + this.offset.getY();
+        double x = Math.min(Math.max(screenX, area.getMinX()), area.getMaxX());
+        double y = Math.min(Math.max(screenY, area.getMinY()), area.getMaxY());
+        this.shift(x - screenX, y - screenY);
+    }
+
+    /**
+     * Translates the graphics so that world space can be drawn. Offset is
+     * rounded so that everything drawn snaps to the same pixels. Has to be
+     * followed by {@link #restore(RenderList)}.
+     */
+    public void apply(RenderList g) {
+        this.appliedX = (int)Math.round(this.offset.getX());
+        this.appliedY = (int)Math.round(this.offset.getY());
+        g.translate(this.appliedX, this.appliedY);
+    }
+
+    /**
+     * Reverts the translation done by {@link #apply(RenderList)}.
+     */
+    public void restore(RenderList g) {
+        g.translate(-this.appliedX, -this.appliedY);
+    }
+}
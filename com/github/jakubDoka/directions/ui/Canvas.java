@@ -1,102 +1,200 @@
 package com.github.jakubDoka.directions.ui;
 
-import javax.swing.JFrame;
 import javax.swing.event.MouseInputListener;
 
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferStrategy;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 
 /**
- * Canvas handles a drawing of canvas objects, once object is added 
- * it is drawn in that order, to push any object higher you have to 
- * reinsert the object.
+ * Canvas handles a drawing of canvas objects, objects are drawn in
+ * order of their z, see {@link CanvasObject#setZ(int)}, objects with
+ * same z in order they were added in. Canvas is the root of object
+ * tree, objects outside of the screen are culled with their children.
  * 
- * Canvas also manages key and mouse events.
+ * Only damaged part of the screen is redrawn, objects report the damage 
+ * with {@link CanvasObject#invalidate()}. If nothing is damaged, frame is
+ * not presented at all. Objects are not drawn directly, they are recorded
+ * to render list and {@link Renderer} draws it to {@link IRenderTarget},
+ * on its own thread or right away. With {@link ImageTarget} canvas works
+ * without display.
+ * 
+ * Canvas also manages key and mouse events. Event thread only queues the
+ * events, game thread applies them in {@link #updateInput()} so state
+ * does not change in the middle of the frame.
  */
-public class Canvas extends JFrame implements KeyListener, MouseInputListener {
-    private final java.awt.Canvas canvas;
+public class Canvas implements KeyListener, MouseInputListener {
+    private static final int INPUT_CAPACITY = 256;
+
+    private final IRenderTarget target;
     private Color background;
 
     private final Rectangle tBounds;
-    private final Point mouse;
+    /**
+     * x in upper and y in lower half, written by event thread
+     */
+    private volatile long mouse;
+
+    private final Damage damage;
+    private final Renderer renderer;
+    private final LatencyTracker latency;
 
     
-    private final ArrayList<CanvasObject> objects;
+    private final ChildList objects;
     
-    private final HashSet<Integer> pressed;
-    private final HashSet<Integer> justPressed;
-    private final HashSet<Integer> justReleased;
+    private final InputQueue input;
+    private final InputQueue.Event event;
+
+    private final BitSet pressed;
+    private final BitSet justPressed;
+    private final BitSet justReleased;
     
-    private final HashSet<Integer> mousePressed;
-    private final HashSet<Integer> mouseJustPressed;
-    private final HashSet<Integer> mouseJustReleased;
+    private final BitSet mousePressed;
+    private final BitSet mouseJustPressed;
+    private final BitSet mouseJustReleased;
+
+    /**
+     * every key press of the frame in order, same key can be there many times
+     */
+    private int[] keyPresses;
+    private long[] keyPressTimes;
+    private int keyPressCount;
+
+    /**
+     * time the oldest press not yet drawn was queued, 0 if there is none
+     */
+    private long inputTime;
+    /**
+     * time the press was taken from queue
+     */
+    private long inputTakenTime;
 
     /**
-     * Creates a new canvas instance.
+     * Creates a new canvas drawing to the new window on render thread.
      * @param title - title of the window.
      * @param width - width of the window.
      * @param height - height of the window.
      */
     public Canvas(String title, int width, int height) {
-        super(title);
-        
-        this.canvas = new java.awt.Canvas();
-        this.canvas.setPreferredSize(new Dimension(width, height));
-        this.canvas.setFocusable(true);
-        this.canvas.addKeyListener(this);
-        this.canvas.addMouseListener(this);
-        this.canvas.addMouseMotionListener(this);
-
-        this.add(this.canvas);
-        this.pack();
-        this.setResizable(false);
-        this.setLocationRelativeTo(null);
-        this.setVisible(true);
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        
+        this(new WindowTarget(title, width, height), true);
+    }
+
+    /**
+     * Creates a new canvas drawing to the target.
+     * @param target - where frames are drawn to.
+     * @param isThreaded - if true, frames are drawn on render thread, 
+     * otherwise they are drawn in {@link #redraw()}.
+     */
+    public Canvas(IRenderTarget target, boolean isThreaded) {
+        this.target = target;
         this.background = Color.WHITE;
         
-        this.objects = new ArrayList<CanvasObject>();
+        this.objects = new ChildList();
         
-        this.pressed = new HashSet<>();
-        this.justPressed = new HashSet<>();
-        this.justReleased = new HashSet<>();
+        this.input = new InputQueue(INPUT_CAPACITY);
+        this.event = new InputQueue.Event();
+
+        this.pressed = new BitSet();
+        this.justPressed = new BitSet();
+        this.justReleased = new BitSet();
         
-        this.mousePressed = new HashSet<>();
-        this.mouseJustPressed = new HashSet<>();
-        this.mouseJustReleased = new HashSet<>();
+        this.mousePressed = new BitSet();
+        this.mouseJustPressed = new BitSet();
+        this.mouseJustReleased = new BitSet();
+
+        this.keyPresses = new int[16];
+        this.keyPressTimes = new long[16];
 
         this.tBounds = new Rectangle();
-        this.mouse = new Point();
+
+        this.damage = new Damage();
+        this.damage.addAll();
+        this.latency = new LatencyTracker();
+        this.renderer = new Renderer(this.target, this.latency);
+        if (isThreaded) {
+            this.renderer.start();
+        }
+        this.target.attach(this);
     }
 
     /**
      * Makes canvas responsive to input and redraw objects. 
-     * Needs to be called every frame.
+     * Needs to be called every frame, after the game update.
      */
     public void update() {
-        this.updateInput();
+        // objects were updated with input taken at the end of last frame,
+        // so that input is in this redraw
         this.redraw();
+        this.updateInput();
     }
 
     /**
-     * Updates the key and mouse sets. Needs to be called every frame to
-     * properly detect all events. 
+     * Updates the key and mouse sets with events queued since last call. 
+     * Needs to be called every frame to properly detect all events. 
      */
     public void updateInput() {
         this.justPressed.clear();
         this.justReleased.clear();
         this.mouseJustPressed.clear();
         this.mouseJustReleased.clear();
+        this.keyPressCount = 0;
+
+        if (this.input.size() == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        InputQueue.Event e = this.event;
+        while (this.input.poll(e)) {
+            int code = e.getCode();
+            this.latency.record(LatencyTracker.Stage.QUEUE_WAIT, now - e.getNanoTime());
+            switch (e.getType()) {
+                case InputQueue.KEY_PRESSED:
+                    this.justPressed.set(code);
+                    this.pressed.set(code);
+                    this.addKeyPress(code, e.getNanoTime());
+                    this.trackInput(e.getNanoTime(), now);
+                    break;
+                case InputQueue.KEY_RELEASED:
+                    this.pressed.clear(code);
+                    this.justReleased.set(code);
+                    break;
+                case InputQueue.MOUSE_PRESSED:
+                    this.mouseJustPressed.set(code);
+                    this.mousePressed.set(code);
+                    this.trackInput(e.getNanoTime(), now);
+                    break;
+                case InputQueue.MOUSE_RELEASED:
+                    this.mousePressed.clear(code);
+                    this.mouseJustReleased.set(code);
+                    break;
+                default:
+            }
+        }
+    }
+
+    /**
+     * Remembers the press so its latency can be followed to the screen.
+     */
+    private void trackInput(long queued, long taken) {
+        if (this.inputTime == 0) {
+            this.inputTime = queued;
+            this.inputTakenTime = taken;
+        }
+    }
+
+    private void addKeyPress(int code, long nanoTime) {
+        if (this.keyPressCount == this.keyPresses.length) {
+            this.keyPresses = java.util.Arrays.copyOf(this.keyPresses, this.keyPressCount * 2);
+            this.keyPressTimes = java.util.Arrays.copyOf(this.keyPressTimes, this.keyPressCount * 2);
+        }
+        this.keyPresses[this.keyPressCount] = code;
+        this.keyPressTimes[this.keyPressCount] = nanoTime;
+        this.keyPressCount++;
     }
 
     /**
@@ -104,115 +202,196 @@ public class Canvas extends JFrame implements KeyListener, MouseInputListener {
      */
     public void addObject(CanvasObject canvasObject) {
         this.objects.add(canvasObject);
+        canvasObject.attach(null, this.damage);
+        canvasObject.invalidate();
     }
 
     /**
      * Removes object from drawing cycle.
      */
     public void removeObject(CanvasObject canvasObject) {
-        this.objects.remove(canvasObject);
+        if (this.objects.remove(canvasObject)) {
+            canvasObject.invalidate();
+            canvasObject.attach(null, null);
+        }
     }
 
     /**
-     * Redraws all objects. 
+     * Records all objects and passes them to renderer. Nothing is 
+     * recorded if there is no damage.
      */
     public void redraw() {
-        BufferStrategy bs = this.canvas.getBufferStrategy();
-        
-        if (bs == null) {
-            this.canvas.createBufferStrategy(3);
+        long inputTime = this.inputTime;
+        this.inputTime = 0;
+        if (this.damage.isEmpty()) {
+            // input did not change anything, there is nothing to measure
             return;
         }
 
-        Graphics2D g = (Graphics2D)bs.getDrawGraphics();
-
-        this.erase(g);
-
         Rectangle b = this.getRectangle();
-        for (CanvasObject c : this.objects) {
-            c.draw(g, b);
+        RenderList list = this.renderer.begin(b);
+        list.getDamage().add(this.damage);
+        this.damage.clear();
+        if (inputTime != 0) {
+            long now = System.nanoTime();
+            this.latency.record(LatencyTracker.Stage.UPDATE, now - this.inputTakenTime);
+            list.setInputTime(inputTime, now);
         }
 
-        g.dispose();
-        bs.show();
+        list.setColor(this.background);
+        list.fill(b);
+        this.objects.draw(list, b);
+
+        this.renderer.publish();
+    }
+
+    /**
+     * Called by the target from any thread when it needs repainting.
+     */
+    void expose() {
+        this.renderer.expose();
+    }
+
+    /**
+     * Makes whole screen redraw on next {@link #redraw()}.
+     */
+    public void invalidateAll() {
+        this.damage.addAll();
     }
 
     public void setBackground(Color background) {
         this.background = background;
+        this.damage.addAll();
     }
-    
+
+    public IRenderTarget getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Returns true if user is looking at the target.
+     */
+    public boolean isFocused() {
+        return this.target.isFocused();
+    }
+
     /**
-     * Leaves just solid background color visible on screen.
+     * Returns true if window is minimized.
      */
-    public void erase(Graphics2D g) {
-        g.setColor(this.background);
-        g.fill(this.getRectangle());
+    public boolean isMinimized() {
+        return this.target.isMinimized();
     }
 
     public Rectangle getRectangle() {
-        return this.canvas.getBounds(this.tBounds);
+        return this.target.getBounds(this.tBounds);
     }
     
     /**
      * Returns true if key is pressed.
      */
     public boolean isPressed(int keyCode) {
-        return this.pressed.contains(keyCode);
+        return this.pressed.get(keyCode);
     }
 
     /**
      * Returns true if key was just pressed.
      */
     public boolean isJustPressed(int keyCode) {
-        return this.justPressed.contains(keyCode);
+        return this.justPressed.get(keyCode);
+    }
+
+    /**
+     * Returns amount of key presses since last input update. Unlike 
+     * {@link #isJustPressed(int)}, every press is counted even if same 
+     * key was pressed more times.
+     */
+    public int getKeyPressCount() {
+        return this.keyPressCount;
+    }
+
+    /**
+     * Returns key code of i-th key press of this frame.
+     */
+    public int getKeyPress(int i) {
+        return this.keyPresses[i];
+    }
+
+    /**
+     * Returns {@link System#nanoTime()} of the moment i-th key press 
+     * of this frame was received.
+     */
+    public long getKeyPressTime(int i) {
+        return this.keyPressTimes[i];
     }
     
     /**
      * Returns true if key was just released.
      */
     public boolean isJustReleased(int keyCode) {
-        return this.justReleased.contains(keyCode);
+        return this.justReleased.get(keyCode);
     }
 
     /**
      * Returns true if mouse button is pressed.
      */
     public boolean isMouseJustReleased(int button) {
-        return this.mouseJustReleased.contains(button);
+        return this.mouseJustReleased.get(button);
     }
 
     /**
      * Returns true if mouse button was just pressed.
      */
     public boolean isMouseJustPressed(int button) {
-        return this.mouseJustPressed.contains(button);
+        return this.mouseJustPressed.get(button);
     }
     
     /**
      * Returns true if mouse button is pressed.
      */
     public boolean isMousePressed(int button1) {
-        return this.mousePressed.contains(button1);
+        return this.mousePressed.get(button1);
     }
 
     /**
      * Returns true if mouse button was just released.
      */
     public Point getMousePos(Point target) {
-        target.setLocation(this.mouse);
+        long localMouse = this.mouse;
+        target.setLocation((int)(localMouse >> 32), (int)localMouse);
         return target;
     }
+
+    /**
+     * Returns how long the last frame took to draw, in seconds. 
+     * See {@link Renderer#getRenderTime()}.
+     */
+    public double getRenderTime() {
+        return this.renderer.getRenderTime();
+    }
+
+    /**
+     * Returns tracker of latency between input and presenting the frame.
+     */
+    public LatencyTracker getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * Returns amount of input events lost because game did not 
+     * process them fast enough.
+     */
+    public long getDroppedInput() {
+        return this.input.getDropped();
+    }
     
     @Override
     public void keyPressed(KeyEvent e) {
-        this.justPressed.add(e.getKeyCode());
-        this.pressed.add(e.getKeyCode());
+        this.input.offer(InputQueue.KEY_PRESSED, e.getKeyCode());
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        this.pressed.remove(e.getKeyCode());
-        this.justReleased.add(e.getKeyCode());
+        this.input.offer(InputQueue.KEY_RELEASED, e.getKeyCode());
     }
 
     @Override
@@ -222,14 +401,12 @@ public class Canvas extends JFrame implements KeyListener, MouseInputListener {
     
     @Override
     public void mousePressed(MouseEvent e) {
-        this.mouseJustPressed.add(e.getButton());
-        this.mousePressed.add(e.getButton());
+        this.input.offer(InputQueue.MOUSE_PRESSED, e.getButton());
     }
     
     @Override
     public void mouseReleased(MouseEvent e) {
-        this.mousePressed.remove(e.getButton());
-        this.mouseJustReleased.add(e.getButton());
+        this.input.offer(InputQueue.MOUSE_RELEASED, e.getButton());
     }
 
     @Override
@@ -249,11 +426,19 @@ public class Canvas extends JFrame implements KeyListener, MouseInputListener {
 
     @Override
     public void mouseDragged(MouseEvent e) {
-        this.mouse.setLocation(e.getPoint());
+        this.setMouse(e);
     }
 
     @Override
     public void mouseMoved(MouseEvent e) {
-        this.mouse.setLocation(e.getPoint());
+        this.setMouse(e);
+    }
+
+    /**
+     * Position is packed to single long so game thread never sees x and y
+     * of different events.
+     */
+    private void setMouse(MouseEvent e) {
+        this.mouse = ((long)e.getX() << 32) | (e.getY() & 0xFFFFFFFFL);
     }
 }
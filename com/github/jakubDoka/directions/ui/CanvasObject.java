@@ -1,42 +1,139 @@
 package com.github.jakubDoka.directions.ui;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 
 /**
  * CanvasObject is what every class that needs to be drawn on Canvas.
  * It already offers some basic features all canvas elements should have
  * like visibility switch and color.
+ * 
+ * Canvas redraws only damaged parts of the screen so object has to call 
+ * {@link #invalidate()} whenever its look changes.
+ *
+ * Objects form a tree, canvas holds the top ones and panels hold the 
+ * rest. Each object caches its bounds, which include bounds of its 
+ * children, so whole subtree outside the screen is skipped with one 
+ * check. Objects with higher z are drawn over their siblings. Hidden 
+ * object is not drawn and does not report damage, so it costs nothing.
  */
 public abstract class CanvasObject {
     private Color color;
     private boolean isVisible;
+    private int z;
+    private Damage damage;
+    private Panel parent;
+
+    private final Rectangle worldBounds;
+    private boolean hasBounds;
+    private boolean isBoundsStale;
+
+    // managed by ChildList
+    ChildList list;
+    int index;
+    int sequence;
 
     public CanvasObject() {
         this.color = Color.BLACK;
         this.isVisible = true;
+        this.worldBounds = new Rectangle();
+        this.isBoundsStale = true;
     }
     
     /**
      * Place your drawing logic here.
      */
-    public abstract void drawImpl(Graphics2D g);
+    public abstract void drawImpl(RenderList g);
+
+    /**
+     * Returns the area object draws to in screen space.
+     * @param target - rectangle to write bounds to.
+     * @return - target or null if bounds are not known, that means 
+     * object can draw anywhere on the screen.
+     */
+    public Rectangle getBounds(Rectangle target) {
+        return null;
+    }
+
+    /**
+     * Reports that object looks differently so the area it occupies
+     * has to be redrawn. If object moves, it has to be called before 
+     * and after the move.
+     */
+    public void invalidate() {
+        this.isBoundsStale = true;
+        for (CanvasObject p = this.parent; p != null; p = p.parent) {
+            p.isBoundsStale = true;
+            p.childChanged();
+        }
+        if (this.damage != null && this.isShown()) {
+            this.damage.add(this);
+        }
+    }
+
+    /**
+     * Called on every ancestor of invalidated object.
+     */
+    void childChanged() {
+
+    }
+
+    /**
+     * Returns bounds from {@link #getBounds(Rectangle)}, they are cached 
+     * until object or some of its children is invalidated. Returned 
+     * rectangle must not be modified.
+     * @return - null if object has no bounds.
+     */
+    public Rectangle getWorldBounds() {
+        if (this.isBoundsStale) {
+            this.isBoundsStale = false;
+            this.hasBounds = this.getBounds(this.worldBounds) != null;
+        }
+        return this.hasBounds ? this.worldBounds : null;
+    }
+
+    /**
+     * Sets where the object reports damage to, canvas or panel 
+     * does this when object is added.
+     * @param parent - panel holding the object, null for canvas.
+     * @param damage - damage of the canvas, null to detach.
+     */
+    void attach(Panel parent, Damage damage) {
+        this.parent = parent;
+        this.damage = damage;
+    }
+
+    public Panel getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Returns true if object and all its parents are visible.
+     */
+    public boolean isShown() {
+        for (CanvasObject o = this; o != null; o = o.parent) {
+            if (!o.isVisible) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     /**
      * @return returns false if this object is not on the screen
-     * and should be skipped.
+     * and should be skipped. By default cached bounds are tested.
      */
     public boolean intersects(Rectangle bounds) {
-        return true;
+        Rectangle b = this.getWorldBounds();
+        return b == null || b.intersects(bounds);
     }
 
     /**
      * Performs one drawing cycle. This method ca skip drawing of the 
      * object if either of
      *  - {@link #isVisible()} returns false.
-     *  - {@link #intersects(Rect)} returns false.
+     *  - {@link #intersects(Rectangle)} returns false.
      */
-    public void draw(Graphics2D g, Rectangle bounds) {
+    public void draw(RenderList g, Rectangle bounds) {
         if (this.isVisible && this.intersects(bounds)) {
             g.setColor(this.color);
             this.drawImpl(g);
@@ -44,11 +141,40 @@ public abstract class CanvasObject {
     }
 
     public void setColor(Color color) {
-        this.color = color;
+        if (!color.equals(this.color)) {
+            this.color = color;
+            this.invalidate();
+        }
     }
 
     public void setVisible(boolean isVisible) {
-        this.isVisible = isVisible;
+        if (isVisible != this.isVisible) {
+            // hidden object reports no damage, so it is reported while visible
+            if (!isVisible) {
+                this.invalidate();
+            }
+            this.isVisible = isVisible;
+            if (isVisible) {
+                this.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Sets the z-order, object is drawn over its siblings with lower z.
+     */
+    public void setZ(int z) {
+        if (z != this.z) {
+            this.z = z;
+            if (this.list != null) {
+                this.list.reorder();
+            }
+            this.invalidate();
+        }
+    }
+
+    public int getZ() {
+        return this.z;
     }
 
     public boolean isVisible() {
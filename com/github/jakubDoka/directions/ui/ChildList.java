@@ -0,0 +1,145 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Rectangle;
+
+/**
+ * ChildList holds children of one node of the scene, that is canvas or
+ * panel. Children are kept sorted by z-order, objects with same z stay
+ * in the order they were added in.
+ *
+ * Every child knows its slot so removal only clears it. Holes are
+ * squashed and order is restored lazily, before the list is walked, so
+ * many changes in one frame cost one pass.
+ */
+final class ChildList {
+    private CanvasObject[] items;
+    /**
+     * slots used, holes included
+     */
+    private int size;
+    private int count;
+    private int nextSequence;
+    private boolean isOrderStale;
+
+    ChildList() {
+        this.items = new CanvasObject[8];
+    }
+
+    /**
+     * Appends the item, it must not be in any list.
+     */
+    void add(CanvasObject item) {
+        if (this.size == this.items.length) {
+            this.items = java.util.Arrays.copyOf(this.items, this.size * 2);
+        }
+        if (this.size != 0) {
+            CanvasObject last = this.items[this.size - 1];
+            this.isOrderStale |= last == null || last.getZ() > item.getZ();
+        }
+        item.list = this;
+        item.index = this.size;
+        item.sequence = this.nextSequence++;
+        this.items[this.size++] = item;
+        this.count++;
+    }
+
+    /**
+     * @return - false if item is null or not in this list.
+     */
+    boolean remove(CanvasObject item) {
+        if (item == null || item.list != this) {
+            return false;
+        }
+        this.items[item.index] = null;
+        item.list = null;
+        this.count--;
+        // hole in the middle breaks the check in add, it is squashed anyway
+        this.isOrderStale = true;
+        return true;
+    }
+
+    /**
+     * Called when z of the item changes.
+     */
+    void reorder() {
+        this.isOrderStale = true;
+    }
+
+    /**
+     * Returns amount of children, indexes of {@link #get(int)} are
+     * valid until the list changes.
+     */
+    int size() {
+        if (this.isOrderStale) {
+            this.restoreOrder();
+        }
+        return this.count;
+    }
+
+    CanvasObject get(int i) {
+        return this.items[i];
+    }
+
+    /**
+     * Draws every child, children outside the viewport are culled.
+     */
+    void draw(RenderList g, Rectangle viewport) {
+        for (int i = 0, n = this.size(); i < n; i++) {
+            this.items[i].draw(g, viewport);
+        }
+    }
+
+    /**
+     * Adds bounds of all children to the target.
+     * @param isEmpty - true if target holds no bounds yet.
+     * @return - target or null if some child has no bounds.
+     */
+    Rectangle union(Rectangle target, boolean isEmpty) {
+        for (int i = 0, n = this.size(); i < n; i++) {
+            Rectangle itemBounds = this.items[i].getWorldBounds();
+            if (itemBounds == null) {
+                return null;
+            }
+            // empty rectangle would still add its corner to the union
+            if (isEmpty) {
+                target.setBounds(itemBounds);
+                isEmpty = itemBounds.isEmpty();
+            } else if (!itemBounds.isEmpty()) {
+                target.add(itemBounds);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Squashes holes and sorts the children, insertion sort is used
+     * since list is short and almost sorted.
+     */
+    private void restoreOrder() {
+        int n = 0;
+        for (int i = 0; i < this.size; i++) {
+            CanvasObject item = this.items[i];
+            if (item == null) {
+                continue;
+            }
+            int j = n;
+            while (j > 0 && isAbove(this.items[j - 1], item)) {
+                this.items[j] = this.items[j - 1];
+                this.items[j].index = j;
+                j--;
+            }
+            this.items[j] = item;
+            item.index = j;
+            n++;
+        }
+        for (int i = n; i < this.size; i++) {
+            this.items[i] = null;
+        }
+        this.size = n;
+        this.isOrderStale = false;
+    }
+
+    private static boolean isAbove(CanvasObject a, CanvasObject b) {
+        return a.getZ() > b.getZ() || (a.getZ() == b.getZ() && a.sequence > b.sequence);
+    }
+}
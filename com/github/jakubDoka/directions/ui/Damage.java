@@ -0,0 +1,118 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Rectangle;
+
+/**
+ * Damage collects regions of the screen that changed since the last
+ * redraw. Regions are merged into one bounding rectangle, which is not
+ * precise but it is cheap and clipping to single rectangle is fast.
+ * Damage can also be full, when whole screen has to be redrawn.
+ */
+public class Damage {
+    private final Rectangle bounds;
+    private boolean isEmpty;
+    private boolean isFull;
+
+    /**
+     * Creates empty damage.
+     */
+    public Damage() {
+        this.bounds = new Rectangle();
+        this.isEmpty = true;
+        this.isFull = false;
+    }
+
+    /**
+     * Marks region as damaged.
+     * @param region - region in screen space, null means whole screen.
+     */
+    public void add(Rectangle region) {
+        if (this.isFull) {
+            return;
+        }
+        if (region == null) {
+            this.addAll();
+            return;
+        }
+        if (region.isEmpty()) {
+            return;
+        }
+        if (this.isEmpty) {
+            this.bounds.setBounds(region);
+            this.isEmpty = false;
+        } else {
+            this.bounds.add(region);
+        }
+    }
+
+    /**
+     * Marks the area object occupies as damaged.
+     * See {@link CanvasObject#getWorldBounds()}.
+     */
+    public void add(CanvasObject object) {
+        if (!this.isFull) {
+            this.add(object.getWorldBounds());
+        }
+    }
+
+    /**
+     * Adds all regions of other damage.
+     */
+    public void add(Damage other) {
+        if (other.isFull) {
+            this.addAll();
+        } else if (!other.isEmpty) {
+            this.add(other.bounds);
+        }
+    }
+
+    /**
+     * Marks whole screen as damaged.
+     */
+    public void addAll() {
+        this.isFull = true;
+        this.isEmpty = false;
+    }
+
+    /**
+     * Makes this damage the copy of other.
+     */
+    public void set(Damage other) {
+        this.isFull = other.isFull;
+        this.isEmpty = other.isEmpty;
+        this.bounds.setBounds(other.bounds);
+    }
+
+    /**
+     * Forgets all damaged regions.
+     */
+    public void clear() {
+        this.isEmpty = true;
+        this.isFull = false;
+    }
+
+    public boolean isEmpty() {
+        return this.isEmpty;
+    }
+
+    public boolean isFull() {
+        return this.isFull;
+    }
+
+    /**
+     * Returns the damaged region limited to the screen.
+     * @param screen - bounds of the screen.
+     * @param target - rectangle result is written to.
+     * @return - target argument passed as return value.
+     */
+    public Rectangle getBounds(Rectangle screen, Rectangle target) {
+        if (this.isEmpty) {
+            target.setBounds(0, 0, 0, 0);
+        } else if (this.isFull) {
+            target.setBounds(screen);
+        } else {
+            Rectangle.intersect(this.bounds, screen, target);
+        }
+        return target;
+    }
+}
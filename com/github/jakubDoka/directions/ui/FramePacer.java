@@ -0,0 +1,121 @@
+package com.github.jakubDoka.directions.ui;
+
+/**
+ * FramePacer keeps the game loop at target frame rate. Loop calls
+ * {@link #sync()} at the end of every frame and pacer waits until the
+ * frame deadline. Most of the wait is sleeping, the last bit is spinning
+ * because sleep can oversleep by a millisecond or more.
+ *
+ * Pacer can be throttled, for example when window is not focused, then
+ * it uses lower frame rate. Time frame took before waiting is measured
+ * so game can see how much of the frame budget it uses.
+ */
+public class FramePacer {
+    private static final long NANOS_IN_SECOND = 1_000_000_000;
+    private static final long NANOS_IN_MILLI = 1_000_000;
+    /**
+     * waits shorter then this are spun, sleep is not precise enough for them
+     */
+    private static final long SPIN_NANOS = 2 * NANOS_IN_MILLI;
+
+    private int targetFrameRate;
+    private int throttledFrameRate;
+    private boolean isThrottled;
+
+    private long frameStart;
+    private long workNanos;
+
+    /**
+     * Creates new pacer, frame starts at creation.
+     * @param targetFrameRate - frames per second when not throttled.
+     * @param throttledFrameRate - frames per second when throttled.
+     */
+    public FramePacer(int targetFrameRate, int throttledFrameRate) {
+        this.targetFrameRate = targetFrameRate;
+        this.throttledFrameRate = throttledFrameRate;
+        this.frameStart = System.nanoTime();
+    }
+
+    /**
+     * Waits until the current frame should end and starts the next one.
+     * If frame took longer then its budget, it returns immediately and
+     * the next frame gets full budget, missed frames are not caught up.
+     */
+    public void sync() {
+        long now = System.nanoTime();
+        this.workNanos = now - this.frameStart;
+        long deadline = this.frameStart + this.getFrameNanos();
+
+        if (now >= deadline) {
+            this.frameStart = now;
+            return;
+        }
+
+        long remaining = deadline - now;
+        while (remaining > SPIN_NANOS) {
+            try {
+                Thread.sleep((remaining - SPIN_NANOS) / NANOS_IN_MILLI);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        this.frameStart = deadline;
+    }
+
+    /**
+     * Returns duration of one frame in seconds at current frame rate.
+     */
+    public double getFrameBudget() {
+        return this.getFrameNanos() / (double)NANOS_IN_SECOND;
+    }
+
+    /**
+     * Returns how long the last frame worked before it waited, in seconds.
+     * Unlike the delta between frames, this does not include the waiting.
+     */
+    public double getWorkTime() {
+        return this.workNanos / (double)NANOS_IN_SECOND;
+    }
+
+    /**
+     * Returns how much of the current frame budget is left, in seconds.
+     * Negative if frame is already late.
+     */
+    public double getRemainingBudget() {
+        long elapsed = System.nanoTime() - this.frameStart;
+        return (this.getFrameNanos() - elapsed) / (double)NANOS_IN_SECOND;
+    }
+
+    public int getTargetFrameRate() {
+        return this.targetFrameRate;
+    }
+
+    public void setTargetFrameRate(int targetFrameRate) {
+        this.targetFrameRate = targetFrameRate;
+    }
+
+    public int getThrottledFrameRate() {
+        return this.throttledFrameRate;
+    }
+
+    public void setThrottledFrameRate(int throttledFrameRate) {
+        this.throttledFrameRate = throttledFrameRate;
+    }
+
+    public boolean isThrottled() {
+        return this.isThrottled;
+    }
+
+    public void setThrottled(boolean isThrottled) {
+        this.isThrottled = isThrottled;
+    }
+
+    private long getFrameNanos() {
+        return NANOS_IN_SECOND / (this.isThrottled ? this.throttledFrameRate : this.targetFrameRate);
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GlyphAtlas holds printable ASCII glyphs of one font rasterized into
+ * single image. Text made of these characters can be drawn by copying
+ * glyphs from the image instead of going trough the text pipeline.
+ *
+ * Glyphs are rasterized once, in white. Colored copies of the atlas are
+ * made when the color is first used, only few recently used ones are
+ * kept so animated colors do not fill the memory. Atlas only draws,
+ * kerning and ligatures are not supported, same as with default
+ * drawString.
+ *
+ * Atlases are registered per font, {@link TextHandle} uses the atlas of
+ * its font if there is one and text is made only of supported characters.
+ * No font is registered by default. With software rendering copying the
+ * glyphs is slower then drawString, which has its own glyph cache, so
+ * atlas only makes sense on pipelines where image copies are accelerated.
+ */
+public class GlyphAtlas {
+    private static final char FIRST = ' ';
+    private static final char LAST = '~';
+    /**
+     * how many colored atlases are kept
+     */
+    private static final int TINTED_CAPACITY = 8;
+
+    private static final ConcurrentHashMap<Font, GlyphAtlas> ATLASES = new ConcurrentHashMap<>();
+
+    private final Font font;
+    private final BufferedImage mask;
+    private final int[] advances;
+    // where glyph is in the atlas
+    private final int[] atlasX;
+    private final int[] widths;
+    private final int[] heights;
+    // where glyph is drawn relative to the pen on the baseline
+    private final int[] offsetsX;
+    private final int[] offsetsY;
+
+    // colored atlases, guarded by getTinted
+    private final LinkedHashMap<Color, BufferedImage> tinted;
+    private Color lastColor;
+    private BufferedImage lastTinted;
+
+    /**
+     * Rasterizes the glyphs of the font. Glyphs are cropped to pixels 
+     * they cover so that as little as possible is copied when drawing.
+     */
+    public GlyphAtlas(Font font) {
+        this.font = font;
+        // access order makes it least recently used cache
+        this.tinted = new LinkedHashMap<Color, BufferedImage>(TINTED_CAPACITY * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Color, BufferedImage> eldest) {
+                return this.size() > TINTED_CAPACITY;
+            }
+        };
+
+        int count = LAST - FIRST + 1;
+        this.advances = new int[count];
+        this.atlasX = new int[count];
+        this.widths = new int[count];
+        this.heights = new int[count];
+        this.offsetsX = new int[count];
+        this.offsetsY = new int[count];
+
+        // glyphs can reach over their advance and ascent, padding makes sure they fit
+        int padding = font.getSize() / 2 + 1;
+        Graphics2D measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics metrics = measure.getFontMetrics(font);
+        measure.dispose();
+        int ascent = metrics.getMaxAscent() + padding;
+        BufferedImage scratch = new BufferedImage(
+            metrics.getMaxAdvance() + padding * 2, 
+            ascent + metrics.getMaxDescent() + padding, 
+            BufferedImage.TYPE_INT_ARGB
+        );
+
+        BufferedImage[] glyphs = new BufferedImage[count];
+        int atlasWidth = 0;
+        int atlasHeight = 1;
+        for (int i = 0; i < count; i++) {
+            this.advances[i] = metrics.charWidth((char)(FIRST + i));
+            glyphs[i] = this.rasterize((char)(FIRST + i), i, scratch, padding, ascent);
+            this.atlasX[i] = atlasWidth;
+            atlasWidth += this.widths[i];
+            atlasHeight = Math.max(atlasHeight, this.heights[i]);
+        }
+
+        this.mask = new BufferedImage(Math.max(atlasWidth, 1), atlasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = this.mask.createGraphics();
+        for (int i = 0; i < count; i++) {
+            if (glyphs[i] != null) {
+                g.drawImage(glyphs[i], this.atlasX[i], 0, null);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draws the glyph and crops it, fills size and offset of the glyph.
+     * @return - null if glyph has no pixels.
+     */
+    private BufferedImage rasterize(char c, int index, BufferedImage scratch, int penX, int baseline) {
+        Graphics2D g = scratch.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, scratch.getWidth(), scratch.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setFont(this.font);
+        g.setColor(Color.WHITE);
+        g.drawString(String.valueOf(c), penX, baseline);
+        g.dispose();
+
+        int minX = scratch.getWidth();
+        int minY = scratch.getHeight();
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < scratch.getHeight(); y++) {
+            for (int x = 0; x < scratch.getWidth(); x++) {
+                if ((scratch.getRGB(x, y) >>> 24) != 0) {
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return null;
+        }
+
+        this.widths[index] = maxX - minX + 1;
+        this.heights[index] = maxY - minY + 1;
+        this.offsetsX[index] = minX - penX;
+        this.offsetsY[index] = minY - baseline;
+        // scratch is reused, glyph has to be copied
+        BufferedImage glyph = new BufferedImage(this.widths[index], this.heights[index], BufferedImage.TYPE_INT_ARGB);
+        Graphics2D gg = glyph.createGraphics();
+        gg.drawImage(scratch, -minX, -minY, null);
+        gg.dispose();
+        return glyph;
+    }
+
+    /**
+     * Creates atlas for the font and makes it used by text of that font.
+     */
+    public static GlyphAtlas register(Font font) {
+        return ATLASES.computeIfAbsent(font, GlyphAtlas::new);
+    }
+
+    /**
+     * Returns registered atlas of the font or null.
+     */
+    public static GlyphAtlas of(Font font) {
+        return ATLASES.get(font);
+    }
+
+    public Font getFont() {
+        return this.font;
+    }
+
+    /**
+     * Returns true if all characters of the text are in the atlas.
+     */
+    public boolean canDraw(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < FIRST || c > LAST) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draws the text the same way drawString would.
+     * @param text - text made of supported characters, see {@link #canDraw(String)}.
+     * @param x - x of the start of the baseline.
+     * @param y - y of the baseline.
+     * @param color - color of the text.
+     */
+    void draw(Graphics2D g, String text, int x, int y, Color color) {
+        BufferedImage image = this.getTinted(color, g.getDeviceConfiguration());
+        int penX = x;
+        for (int i = 0; i < text.length(); i++) {
+            int index = text.charAt(i) - FIRST;
+            int width = this.widths[index];
+            if (width != 0) {
+                int left = penX + this.offsetsX[index];
+                int top = y + this.offsetsY[index];
+                int cellX = this.atlasX[index];
+                g.drawImage(
+                    image,
+                    left, top, left + width, top + this.heights[index],
+                    cellX, 0, cellX + width, this.heights[index],
+                    null
+                );
+            }
+            penX += this.advances[index];
+        }
+    }
+
+    /**
+     * Returns atlas in the color, opaque colors use image with 1 bit alpha 
+     * because it is faster to draw. Glyphs are not antialiased so nothing 
+     * is lost.
+     */
+    private synchronized BufferedImage getTinted(Color color, GraphicsConfiguration gc) {
+        if (color.equals(this.lastColor)) {
+            return this.lastTinted;
+        }
+
+        BufferedImage image = this.tinted.get(color);
+        if (image == null) {
+            int transparency = color.getAlpha() == 255 ? Transparency.BITMASK : Transparency.TRANSLUCENT;
+            image = gc.createCompatibleImage(this.mask.getWidth(), this.mask.getHeight(), transparency);
+            Graphics2D g = image.createGraphics();
+            g.drawImage(this.mask, 0, 0, null);
+            g.setComposite(AlphaComposite.SrcIn);
+            g.setColor(color);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.dispose();
+            this.tinted.put(color, image);
+        }
+
+        this.lastColor = color;
+        this.lastTinted = image;
+        return image;
+    }
+}
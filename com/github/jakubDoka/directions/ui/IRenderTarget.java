@@ -0,0 +1,67 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * IRenderTarget is what {@link Renderer} draws frames to. Methods are
+ * named after the ones of {@link java.awt.image.BufferStrategy} because
+ * window target is just a thin wrapper around it.
+ *
+ * See {@link WindowTarget} for drawing to the screen and {@link ImageTarget}
+ * for drawing to an image, which works without display.
+ */
+public interface IRenderTarget {
+    /**
+     * Connects the target to the canvas. Targets that have input pass it
+     * to the canvas and ask it for full redraw when they need it.
+     */
+    void attach(Canvas canvas);
+
+    /**
+     * Returns the area frames are drawn to.
+     * @param target - rectangle result is written to.
+     * @return - target argument passed as return value.
+     */
+    Rectangle getBounds(Rectangle target);
+
+    /**
+     * Returns amount of buffers target cycles trough. Buffer that is drawn
+     * to can be that many frames minus one old.
+     */
+    int getBufferCount();
+
+    /**
+     * Returns graphics of the buffer to draw next frame to, caller disposes it.
+     * @return - null if target is not ready yet, whole frame has to be drawn
+     * once it is.
+     */
+    Graphics2D getDrawGraphics();
+
+    /**
+     * Returns true if buffer lost its contents and was restored since
+     * the last {@link #getDrawGraphics()}, whole frame has to be drawn.
+     */
+    boolean contentsRestored();
+
+    /**
+     * Returns true if contents of the buffers were lost since the last
+     * {@link #getDrawGraphics()}.
+     */
+    boolean contentsLost();
+
+    /**
+     * Makes the drawn buffer visible.
+     */
+    void show();
+
+    /**
+     * Returns true if user is looking at the target.
+     */
+    boolean isFocused();
+
+    /**
+     * Returns true if target is hidden, there is no point drawing to it often.
+     */
+    boolean isMinimized();
+}
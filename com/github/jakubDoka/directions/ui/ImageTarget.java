@@ -0,0 +1,75 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * ImageTarget draws frames to a single image. It does not need a display
+ * so it works with java.awt.headless set to true, which makes it usable
+ * for tests and benchmarks. It has no input and it is always focused.
+ */
+public class ImageTarget implements IRenderTarget {
+    private final BufferedImage image;
+
+    /**
+     * Creates target with black image of given size.
+     */
+    public ImageTarget(int width, int height) {
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns the image frames are drawn to. It is written on every
+     * render, so with threaded renderer reading it is a race.
+     */
+    public BufferedImage getImage() {
+        return this.image;
+    }
+
+    @Override
+    public void attach(Canvas canvas) {
+
+    }
+
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        target.setBounds(0, 0, this.image.getWidth(), this.image.getHeight());
+        return target;
+    }
+
+    @Override
+    public int getBufferCount() {
+        return 1;
+    }
+
+    @Override
+    public Graphics2D getDrawGraphics() {
+        return this.image.createGraphics();
+    }
+
+    @Override
+    public boolean contentsRestored() {
+        return false;
+    }
+
+    @Override
+    public boolean contentsLost() {
+        return false;
+    }
+
+    @Override
+    public void show() {
+
+    }
+
+    @Override
+    public boolean isFocused() {
+        return true;
+    }
+
+    @Override
+    public boolean isMinimized() {
+        return false;
+    }
+}
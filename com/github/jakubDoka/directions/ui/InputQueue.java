@@ -0,0 +1,126 @@
+package com.github.jakubDoka.directions.ui;
+
+/**
+ * InputQueue is bounded lock-free queue of input events passed from
+ * event thread to game thread. It is safe only for one producer and one
+ * consumer thread. Events are stored in primitive arrays so nothing is
+ * allocated or boxed while the queue is used.
+ */
+public class InputQueue {
+    public static final byte KEY_PRESSED = 0;
+    public static final byte KEY_RELEASED = 1;
+    public static final byte MOUSE_PRESSED = 2;
+    public static final byte MOUSE_RELEASED = 3;
+
+    private final byte[] types;
+    private final int[] codes;
+    private final long[] nanos;
+    private final int mask;
+
+    // written only by consumer
+    private volatile long head;
+    // written only by producer
+    private volatile long tail;
+    // written only by producer
+    private volatile long dropped;
+
+    /**
+     * Creates an empty queue.
+     * @param capacity - minimal capacity, it is rounded up to power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.types = new byte[size];
+        this.codes = new int[size];
+        this.nanos = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds the event to the queue and stamps it with current nano time.
+     * Only producer can call this. If queue is full event is dropped.
+     * @param type - one of the type constants.
+     * @param code - key code or mouse button.
+     * @return - false if queue is full.
+     */
+    public boolean offer(byte type, int code) {
+        long localTail = this.tail;
+        if (localTail - this.head > this.mask) {
+            this.dropped++;
+            return false;
+        }
+        int index = (int)localTail & this.mask;
+        this.types[index] = type;
+        this.codes[index] = code;
+        this.nanos[index] = System.nanoTime();
+        // volatile write publishes the slot
+        this.tail = localTail + 1;
+        return true;
+    }
+
+    /**
+     * Removes the oldest event and writes it to the target. Only
+     * consumer can call this.
+     * @return - false if queue is empty.
+     */
+    public boolean poll(Event target) {
+        long localHead = this.head;
+        if (localHead == this.tail) {
+            return false;
+        }
+        int index = (int)localHead & this.mask;
+        target.set(this.types[index], this.codes[index], this.nanos[index]);
+        // volatile write releases the slot
+        this.head = localHead + 1;
+        return true;
+    }
+
+    /**
+     * Returns amount of events waiting in the queue.
+     */
+    public int size() {
+        return (int)(this.tail - this.head);
+    }
+
+    /**
+     * Returns amount of events dropped because queue was full.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Event is a reusable view of one queued event,
+     * it can be filled with {@link InputQueue#poll(Event)}.
+     */
+    public static class Event {
+        private byte type;
+        private int code;
+        private long nanoTime;
+
+        void set(byte type, int code, long nanoTime) {
+            this.type = type;
+            this.code = code;
+            this.nanoTime = nanoTime;
+        }
+
+        public byte getType() {
+            return this.type;
+        }
+
+        public int getCode() {
+            return this.code;
+        }
+
+        /**
+         * Returns {@link System#nanoTime()} of the moment event was queued.
+         */
+        public long getNanoTime() {
+            return this.nanoTime;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.io.IOException;
+
+/**
+ * LatencyHistogram counts durations of the last few samples. Old samples
+ * fall out of the window so histogram shows how the game behaves now and
+ * not since the start.
+ *
+ * Buckets are logarithmic with four linear sub-buckets for each power of
+ * two microseconds, so bucket is never wider then quarter of its value.
+ * Recording does not allocate. One thread records, others can export, all
+ * methods are synchronized but lock is never contended for long.
+ */
+public class LatencyHistogram {
+    private static final long NANOS_IN_MICRO = 1_000;
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**
+     * long of nanoseconds has at most 54 bits of microseconds
+     */
+    private static final int BUCKETS = SUB_BUCKETS + (54 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final long[] samples;
+    private final int[] buckets;
+    private long recorded;
+    private long sum;
+
+    /**
+     * Creates empty histogram.
+     * @param name - name used when exporting.
+     * @param window - amount of last samples histogram remembers.
+     */
+    public LatencyHistogram(String name, int window) {
+        this.name = name;
+        this.samples = new long[window];
+        this.buckets = new int[BUCKETS];
+    }
+
+    /**
+     * Adds the sample, the oldest one is forgotten if window is full.
+     * @param nanos - duration in nanoseconds, negative is taken as 0.
+     */
+    public synchronized void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int index = (int)(this.recorded % this.samples.length);
+        if (this.recorded >= this.samples.length) {
+            long old = this.samples[index];
+            this.buckets[bucketOf(old)]--;
+            this.sum -= old;
+        }
+        this.samples[index] = value;
+        this.buckets[bucketOf(value)]++;
+        this.sum += value;
+        this.recorded++;
+    }
+
+    /**
+     * Forgets all samples.
+     */
+    public synchronized void clear() {
+        java.util.Arrays.fill(this.buckets, 0);
+        this.recorded = 0;
+        this.sum = 0;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns amount of samples in the window.
+     */
+    public synchronized int getCount() {
+        return (int)Math.min(this.recorded, this.samples.length);
+    }
+
+    /**
+     * Returns amount of samples recorded since creation or last clear.
+     */
+    public synchronized long getRecorded() {
+        return this.recorded;
+    }
+
+    /**
+     * Returns mean of samples in the window in nanoseconds.
+     */
+    public synchronized long getMean() {
+        int count = this.getCount();
+        return count == 0 ? 0 : this.sum / count;
+    }
+
+    /**
+     * Returns the largest sample in the window in nanoseconds.
+     */
+    public synchronized long getMax() {
+        long max = 0;
+        for (int i = 0; i < this.getCount(); i++) {
+            max = Math.max(max, this.samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns value bellow which given fraction of samples is. Value is
+     * upper bound of the bucket so it is precise only to the bucket width.
+     * @param fraction - from 0 to 1, 0.99 gives 99th percentile.
+     * @return - value in nanoseconds, 0 if histogram is empty.
+     */
+    public synchronized long getPercentile(double fraction) {
+        int count = this.getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long)Math.ceil(fraction * count), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /**
+     * Writes one line with summary, values are in microseconds:
+     * name,count,mean,p50,p90,p99,max
+     */
+    public synchronized void exportSummary(Appendable out) throws IOException {
+        out.append(this.name).append(',')
+            .append(String.valueOf(this.getCount())).append(',')
+            .append(String.valueOf(this.getMean() / NANOS_IN_MICRO)).append(',')
+            .append(String.valueOf(this.getPercentile(0.5) / NANOS_IN_MICRO)).append(',')
+            .append(String.valueOf(this.getPercentile(0.9) / NANOS_IN_MICRO)).append(',')
+            .append(String.valueOf(this.getPercentile(0.99) / NANOS_IN_MICRO)).append(',')
+            .append(String.valueOf(this.getMax() / NANOS_IN_MICRO)).append('\n');
+    }
+
+    /**
+     * Writes line for each non-empty bucket, values are in microseconds:
+     * name,from,to,count
+     */
+    public synchronized void exportBuckets(Appendable out) throws IOException {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (this.buckets[i] == 0) {
+                continue;
+            }
+            out.append(this.name).append(',')
+                .append(String.valueOf(lowerBound(i) / NANOS_IN_MICRO)).append(',')
+                .append(String.valueOf(upperBound(i) / NANOS_IN_MICRO)).append(',')
+                .append(String.valueOf(this.buckets[i])).append('\n');
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / NANOS_IN_MICRO;
+        if (micros < SUB_BUCKETS) {
+            return (int)micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int)(micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * first nanosecond that falls into the bucket
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket * NANOS_IN_MICRO;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long)(SUB_BUCKETS | sub) << (exponent - SUB_BITS)) * NANOS_IN_MICRO;
+    }
+
+    /**
+     * last nanosecond that falls into the bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowerBound(bucket + 1) - 1;
+    }
+}
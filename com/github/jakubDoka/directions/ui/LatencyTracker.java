@@ -0,0 +1,87 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.io.IOException;
+
+/**
+ * LatencyTracker measures how long it takes from input event until its
+ * effect is on the screen. The path is split into stages, each stage has
+ * its own histogram:
+ *
+ * QUEUE_WAIT - from event thread queuing the event until game thread takes it.
+ * UPDATE - from taking the event until frame reflecting it starts recording,
+ * this includes waiting for next frame and the game update.
+ * RENDER - from start of the recording until the frame is drawn on render
+ * thread, this includes waiting for render thread.
+ * PRESENT - duration of {@link java.awt.image.BufferStrategy#show()}.
+ * TOTAL - from queuing the event until the frame is presented.
+ *
+ * Only presses are followed trough all stages, releases are counted just
+ * in QUEUE_WAIT. If more presses end up in one frame, the oldest one is
+ * measured.
+ */
+public class LatencyTracker {
+    private static final int WINDOW = 1024;
+
+    private final LatencyHistogram[] histograms;
+
+    /**
+     * Creates tracker with empty histograms.
+     */
+    public LatencyTracker() {
+        Stage[] stages = Stage.values();
+        this.histograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            this.histograms[i] = new LatencyHistogram(stages[i].name(), WINDOW);
+        }
+    }
+
+    /**
+     * Records duration of the stage.
+     * @param stage - stage that took the time.
+     * @param nanos - duration in nanoseconds.
+     */
+    public void record(Stage stage, long nanos) {
+        this.histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return this.histograms[stage.ordinal()];
+    }
+
+    /**
+     * Forgets all samples of all stages.
+     */
+    public void clear() {
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * Writes summary of all stages followed by their buckets as CSV, times
+     * are in microseconds. See {@link LatencyHistogram#exportSummary(Appendable)}
+     * and {@link LatencyHistogram#exportBuckets(Appendable)}.
+     */
+    public void export(Appendable out) throws IOException {
+        out.append("stage,count,mean,p50,p90,p99,max\n");
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.exportSummary(out);
+        }
+        out.append('\n');
+        out.append("stage,from,to,count\n");
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.exportBuckets(out);
+        }
+    }
+
+    /**
+     * Stage of the way from input to the screen.
+     */
+    public enum Stage {
+        QUEUE_WAIT,
+        UPDATE,
+        RENDER,
+        PRESENT,
+        TOTAL,
+    }
+}
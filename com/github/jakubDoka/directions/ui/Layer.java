@@ -0,0 +1,119 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Layer is part of the frame drawn once into an image and then only
+ * copied to the screen until it changes. Logic thread records layer into
+ * its own render list when it changes, render thread draws the list into
+ * {@link VolatileImage} and copies the image every frame.
+ *
+ * Recorded lists are passed trough triple buffer same way as frames of
+ * {@link Renderer}, so recording never waits for drawing. Image is
+ * owned by render thread.
+ */
+public class Layer {
+    /**
+     * set on shared index when it holds list render thread did not take yet
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final RenderList[] lists;
+    private final AtomicInteger shared;
+
+    // owned by logic thread
+    private int back;
+
+    // owned by render thread
+    private int front;
+    private VolatileImage image;
+    private boolean isStale;
+    private final Rectangle bounds;
+
+    /**
+     * Creates empty layer.
+     */
+    public Layer() {
+        this.lists = new RenderList[3];
+        for (int i = 0; i < this.lists.length; i++) {
+            this.lists[i] = new RenderList();
+        }
+        this.back = 0;
+        this.shared = new AtomicInteger(1);
+        this.front = 2;
+        this.bounds = new Rectangle();
+    }
+
+    /**
+     * Returns cleared list new content of the layer can be recorded to.
+     * Commands are in screen space, only what is inside bounds is kept.
+     * @param bounds - area of the screen layer covers.
+     */
+    public RenderList begin(Rectangle bounds) {
+        RenderList list = this.lists[this.back];
+        list.clear(bounds);
+        return list;
+    }
+
+    /**
+     * Publishes list returned by {@link #begin(Rectangle)}, list can not
+     * be touched after this call.
+     */
+    public void publish() {
+        this.back = this.shared.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Draws the newest published content, image is redrawn only if
+     * content changed or image was lost. Called on render thread.
+     */
+    void draw(Graphics2D g) {
+        if ((this.shared.get() & FRESH) != 0) {
+            this.front = this.shared.getAndSet(this.front) & INDEX_MASK;
+            this.isStale = true;
+        }
+
+        RenderList list = this.lists[this.front];
+        Rectangle b = list.getBounds(this.bounds);
+        if (b.isEmpty()) {
+            return;
+        }
+
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        do {
+            boolean fits = this.image != null && 
+                this.image.getWidth() == b.width && 
+                this.image.getHeight() == b.height;
+            int validation = fits ? this.image.validate(gc) : VolatileImage.IMAGE_INCOMPATIBLE;
+            if (validation == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (this.image != null) {
+                    this.image.flush();
+                }
+                this.image = gc.createCompatibleVolatileImage(b.width, b.height, Transparency.TRANSLUCENT);
+                this.isStale = true;
+            } else if (validation == VolatileImage.IMAGE_RESTORED) {
+                this.isStale = true;
+            }
+
+            if (this.isStale) {
+                this.isStale = false;
+                Graphics2D ig = this.image.createGraphics();
+                ig.setComposite(AlphaComposite.Clear);
+                ig.fillRect(0, 0, b.width, b.height);
+                ig.setComposite(AlphaComposite.SrcOver);
+                ig.translate(-b.x, -b.y);
+                list.replay(ig);
+                ig.dispose();
+            }
+
+            g.drawImage(this.image, b.x, b.y, null);
+        } while (this.image.contentsLost());
+    }
+}
@@ -1,18 +1,29 @@
 package com.github.jakubDoka.directions.ui;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.util.ArrayList;
 
 /**
  * Panels role is to craw all its children on to oh himself.
  * This allows some nice ui trees.
+ * 
+ * Panel can be cached, then its children are drawn into {@link Layer} 
+ * only when some of them changes, otherwise panel just draws the layer.
+ * This pays off for panels that change only when user interacts with them.
+ * 
+ * Children are drawn trough {@link CanvasObject#draw(RenderList, Rectangle)}
+ * so hidden ones and ones outside of the screen are skipped.
  */
 public class Panel extends CanvasObject {
     private final Color color;
     private final Rectangle bounds;
-    private final ArrayList<CanvasObject> items;
+    private final Rectangle viewport;
+    private final ChildList items;
+    private final Rectangle layerBounds;
+
+    private Damage damage;
+    private Layer layer;
+    private boolean isLayerStale;
 
     /**
      * Creates a new panel instance. Panel is immutable.
@@ -22,23 +33,99 @@ public class Panel extends CanvasObject {
     public Panel(Rectangle bounds, Color color) {
         this.color = color;
         this.bounds = bounds;
-        this.items = new ArrayList<>();
+        this.viewport = new Rectangle();
+        this.items = new ChildList();
+        this.layerBounds = new Rectangle();
     }
 
     public void addItem(CanvasObject item) {
         this.items.add(item);
+        item.attach(this, this.damage);
+        item.invalidate();
     }
 
     public void removeItem(CanvasObject item) {
-        this.items.remove(item);
+        if (this.items.remove(item)) {
+            item.invalidate();
+            item.attach(null, null);
+        }
     }
 
+    /**
+     * Children report damage to the same place as panel does.
+     */
+    @Override
+    void attach(Panel parent, Damage damage) {
+        super.attach(parent, damage);
+        this.damage = damage;
+        for (int i = 0, n = this.items.size(); i < n; i++) {
+            this.items.get(i).attach(this, damage);
+        }
+    }
+
+    /**
+     * Layer has to be recorded again if any child changed, even while 
+     * panel is hidden.
+     */
     @Override
-    public void drawImpl(Graphics2D g) {
+    void childChanged() {
+        this.isLayerStale = true;
+    }
+
+    /**
+     * Makes panel draw its children trough cached layer.
+     */
+    public void setCached(boolean isCached) {
+        if (isCached == this.isCached()) {
+            return;
+        }
+        this.layer = isCached ? new Layer() : null;
+        this.isLayerStale = true;
+    }
+
+    public boolean isCached() {
+        return this.layer != null;
+    }
+
+    /**
+     * Bounds of panel include bounds of its items. If any of them 
+     * has no bounds, panel has none as well.
+     */
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        return this.unionBounds(target);
+    }
+
+    private Rectangle unionBounds(Rectangle target) {
+        target.setBounds(this.bounds);
+        return this.items.union(target, this.bounds.isEmpty());
+    }
+
+    @Override
+    public void drawImpl(RenderList g) {
+        if (!this.isCached()) {
+            this.drawItems(g);
+            return;
+        }
+
+        if (this.isLayerStale) {
+            // subclasses can report no bounds because of what they draw 
+            // on their own, layer needs only bounds of the items
+            Rectangle b = this.unionBounds(this.layerBounds);
+            if (b == null) {
+                b = g.getBounds(this.layerBounds);
+            }
+            RenderList list = this.layer.begin(b);
+            this.drawItems(list);
+            this.layer.publish();
+            this.isLayerStale = false;
+        }
+        g.drawLayer(this.layer);
+    }
+
+    private void drawItems(RenderList g) {
         g.setColor(this.color);
         g.fill(this.bounds);
-        for (CanvasObject item : this.items) {
-            item.drawImpl(g);
-        }        
+        this.items.draw(g, g.getBounds(this.viewport));
     }
 }
@@ -0,0 +1,307 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * RenderList records drawing commands so that they can be replayed on
+ * Graphics2D later, on other thread. Methods are named the same as the
+ * ones of Graphics2D they record.
+ *
+ * Recorded list does not reference anything mutable, shapes are copied
+ * into pooled paths and colors, fonts and strings are immutable. Only
+ * layers, glyph atlases and shapes passed to {@link #fillShared(Shape)}
+ * are referenced, they are safe to share between threads. List is reused,
+ * once warmed up recording does not allocate.
+ */
+public class RenderList {
+    private static final byte SET_COLOR = 0;
+    private static final byte SET_FONT = 1;
+    private static final byte FILL_RECT = 2;
+    private static final byte FILL_SHAPE = 3;
+    private static final byte DRAW_STRING = 4;
+    private static final byte TRANSLATE = 5;
+    private static final byte DRAW_LAYER = 6;
+    private static final byte DRAW_GLYPHS = 7;
+    private static final byte FILL_SHARED = 8;
+
+    private final Damage damage;
+    private final Rectangle bounds;
+    /**
+     * only measures text, fonts are measured on the recording thread
+     */
+    private final Graphics2D measure;
+    private final ArrayList<Path2D.Float> shapes;
+
+    private byte[] ops;
+    private int opCount;
+    private int[] ints;
+    private int intCount;
+    private Object[] refs;
+    private int refCount;
+    private int shapeCount;
+    private Font font;
+    private Color color;
+    private long inputTime;
+    private long recordTime;
+
+    /**
+     * Creates empty list.
+     */
+    public RenderList() {
+        this.damage = new Damage();
+        this.bounds = new Rectangle();
+        this.measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        this.shapes = new ArrayList<>();
+        this.ops = new byte[64];
+        this.ints = new int[256];
+        this.refs = new Object[64];
+    }
+
+    /**
+     * Forgets all commands and damage, pooled memory is kept.
+     * @param bounds - bounds of the screen list is drawn to.
+     */
+    public void clear(Rectangle bounds) {
+        this.bounds.setBounds(bounds);
+        this.damage.clear();
+        this.opCount = 0;
+        this.intCount = 0;
+        // references are dropped so list does not keep them alive
+        java.util.Arrays.fill(this.refs, 0, this.refCount, null);
+        this.refCount = 0;
+        this.shapeCount = 0;
+        this.font = null;
+        this.color = null;
+        this.inputTime = 0;
+        this.recordTime = 0;
+    }
+
+    public void setColor(Color color) {
+        this.op(SET_COLOR);
+        this.ref(color);
+        this.color = color;
+    }
+
+    public void setFont(Font font) {
+        this.op(SET_FONT);
+        this.ref(font);
+        this.font = font;
+    }
+
+    /**
+     * Returns metrics of the last font set.
+     */
+    public FontMetrics getFontMetrics() {
+        return this.measure.getFontMetrics(this.font);
+    }
+
+    /**
+     * Fills the shape. Rectangles are stored as numbers, other shapes
+     * are copied so caller can change them right after the call.
+     */
+    public void fill(Shape shape) {
+        if (shape instanceof Rectangle) {
+            Rectangle rect = (Rectangle)shape;
+            this.op(FILL_RECT);
+            this.ints(4);
+            this.ints[this.intCount++] = rect.x;
+            this.ints[this.intCount++] = rect.y;
+            this.ints[this.intCount++] = rect.width;
+            this.ints[this.intCount++] = rect.height;
+            return;
+        }
+
+        if (this.shapeCount == this.shapes.size()) {
+            this.shapes.add(new Path2D.Float());
+        }
+        Path2D.Float copy = this.shapes.get(this.shapeCount++);
+        copy.reset();
+        copy.append(shape, false);
+        this.op(FILL_SHAPE);
+    }
+
+    /**
+     * Fills the shape without copying it, recording costs the same no matter
+     * how big the shape is. Use it for big shapes that change rarely.
+     * @param shape - shape that is never changed after the call, caller has 
+     * to create new one instead since list can be replayed on other thread.
+     */
+    public void fillShared(Shape shape) {
+        this.op(FILL_SHARED);
+        this.ref(shape);
+    }
+
+    public void drawString(String text, int x, int y) {
+        this.op(DRAW_STRING);
+        this.ref(text);
+        this.ints(2);
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+    }
+
+    /**
+     * Draws the text by copying glyphs from the atlas, in the last color 
+     * set. Falls back to {@link #drawString(String, int, int)} with the 
+     * last font set if color was not set in this list yet.
+     * @param text - text made of characters atlas has, see {@link GlyphAtlas#canDraw(String)}.
+     */
+    public void drawGlyphs(GlyphAtlas atlas, String text, int x, int y) {
+        if (this.color == null) {
+            this.drawString(text, x, y);
+            return;
+        }
+        this.op(DRAW_GLYPHS);
+        this.ref(atlas);
+        this.ref(text);
+        this.ref(this.color);
+        this.ints(2);
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+    }
+
+    public void translate(int x, int y) {
+        this.op(TRANSLATE);
+        this.ints(2);
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+    }
+
+    /**
+     * Draws the newest content of the layer. Unlike other commands, layer
+     * is not copied, it is drawn as it is when list is replayed.
+     */
+    public void drawLayer(Layer layer) {
+        this.op(DRAW_LAYER);
+        this.ref(layer);
+    }
+
+    /**
+     * Draws all recorded commands in order they were recorded.
+     */
+    public void replay(Graphics2D g) {
+        int intCursor = 0;
+        int refCursor = 0;
+        int shapeCursor = 0;
+        for (int i = 0; i < this.opCount; i++) {
+            switch (this.ops[i]) {
+                case SET_COLOR:
+                    g.setColor((Color)this.refs[refCursor++]);
+                    break;
+                case SET_FONT:
+                    g.setFont((Font)this.refs[refCursor++]);
+                    break;
+                case FILL_RECT:
+                    g.fillRect(
+                        this.ints[intCursor],
+                        this.ints[intCursor + 1],
+                        this.ints[intCursor + 2],
+                        this.ints[intCursor + 3]
+                    );
+                    intCursor += 4;
+                    break;
+                case FILL_SHAPE:
+                    g.fill(this.shapes.get(shapeCursor++));
+                    break;
+                case FILL_SHARED:
+                    g.fill((Shape)this.refs[refCursor++]);
+                    break;
+                case DRAW_STRING:
+                    g.drawString((String)this.refs[refCursor++], this.ints[intCursor], this.ints[intCursor + 1]);
+                    intCursor += 2;
+                    break;
+                case TRANSLATE:
+                    g.translate(this.ints[intCursor], this.ints[intCursor + 1]);
+                    intCursor += 2;
+                    break;
+                case DRAW_LAYER:
+                    ((Layer)this.refs[refCursor++]).draw(g);
+                    break;
+                case DRAW_GLYPHS:
+                    ((GlyphAtlas)this.refs[refCursor]).draw(
+                        g, 
+                        (String)this.refs[refCursor + 1], 
+                        this.ints[intCursor], 
+                        this.ints[intCursor + 1], 
+                        (Color)this.refs[refCursor + 2]
+                    );
+                    refCursor += 3;
+                    intCursor += 2;
+                    break;
+                default:
+            }
+        }
+    }
+
+    /**
+     * Returns damage of the frame this list holds.
+     */
+    public Damage getDamage() {
+        return this.damage;
+    }
+
+    /**
+     * Marks the frame as reflecting input queued at given time. If frame
+     * already has older input, older one is kept together with its record 
+     * time, so they always belong to the same input.
+     * @param inputTime - {@link System#nanoTime()} of the input, 0 means no input.
+     * @param recordTime - {@link System#nanoTime()} when the frame with the 
+     * input was recorded.
+     */
+    public void setInputTime(long inputTime, long recordTime) {
+        if (inputTime != 0 && (this.inputTime == 0 || inputTime - this.inputTime < 0)) {
+            this.inputTime = inputTime;
+            this.recordTime = recordTime;
+        }
+    }
+
+    /**
+     * Returns time of the oldest input this frame reflects, 0 if there is none.
+     */
+    public long getInputTime() {
+        return this.inputTime;
+    }
+
+    /**
+     * Returns when the frame with the oldest input was recorded, if that
+     * frame was skipped, it is older then this list.
+     */
+    public long getRecordTime() {
+        return this.recordTime;
+    }
+
+    /**
+     * Returns bounds of the screen list was recorded for.
+     */
+    public Rectangle getBounds(Rectangle target) {
+        target.setBounds(this.bounds);
+        return target;
+    }
+
+    private void op(byte op) {
+        if (this.opCount == this.ops.length) {
+            this.ops = java.util.Arrays.copyOf(this.ops, this.ops.length * 2);
+        }
+        this.ops[this.opCount++] = op;
+    }
+
+    private void ref(Object ref) {
+        if (this.refCount == this.refs.length) {
+            this.refs = java.util.Arrays.copyOf(this.refs, this.refs.length * 2);
+        }
+        this.refs[this.refCount++] = ref;
+    }
+
+    private void ints(int amount) {
+        if (this.intCount + amount > this.ints.length) {
+            this.ints = java.util.Arrays.copyOf(this.ints, this.ints.length * 2);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.github.jakubDoka.directions.ui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Renderer draws recorded frames on its own thread so that game logic
+ * does not wait for drawing. Frames are passed trough triple buffer of
+ * render lists, logic records into back list and publishes it, renderer
+ * always takes the newest published one. Neither side ever waits for
+ * the other, if renderer is slower frames are skipped.
+ *
+ * Only damaged part of the screen is redrawn. Back buffer of the target
+ * can be few frames old so damage of last frames is remembered and
+ * redrawn as well.
+ *
+ * If renderer is not started, frames are drawn right in
+ * {@link #publish()} on the calling thread.
+ *
+ * Frames reflecting input report how long they took to draw and present
+ * to {@link LatencyTracker}. Duration of every drawn frame is kept so logic 
+ * can adapt to how expensive drawing is, see {@link #getRenderTime()}.
+ */
+public class Renderer implements Runnable {
+    /**
+     * set on shared index when it holds list renderer did not take yet
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+    private static final long NANOS_IN_SECOND = 1_000_000_000;
+
+    private final IRenderTarget target;
+    private final LatencyTracker latency;
+    private final RenderList[] lists;
+    private final AtomicInteger shared;
+    private final Thread thread;
+
+    // owned by logic thread
+    private int back;
+    private final Damage carried;
+    private long carriedInput;
+    private long carriedRecord;
+
+    // owned by render thread
+    private int front;
+    private final Damage[] history;
+    private int historyHead;
+    private final Rectangle clip;
+    private final Rectangle screen;
+    private final Rectangle temp;
+
+    private volatile boolean isExposed;
+    /**
+     * how long the last frame took to draw and present
+     */
+    private volatile long renderNanos;
+    private boolean isStarted;
+
+    /**
+     * Creates renderer drawing to the target, thread is not started.
+     * @param latency - tracker render and present latency is recorded to.
+     */
+    public Renderer(IRenderTarget target, LatencyTracker latency) {
+        this.target = target;
+        this.latency = latency;
+        this.lists = new RenderList[3];
+        for (int i = 0; i < this.lists.length; i++) {
+            this.lists[i] = new RenderList();
+        }
+        this.back = 0;
+        this.shared = new AtomicInteger(1);
+        this.front = 2;
+        this.carried = new Damage();
+
+        this.history = new Damage[target.getBufferCount() - 1];
+        for (int i = 0; i < this.history.length; i++) {
+            this.history[i] = new Damage();
+        }
+        this.clip = new Rectangle();
+        this.screen = new Rectangle();
+        this.temp = new Rectangle();
+
+        this.thread = new Thread(this, "render");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the render thread, from now on frames are drawn on it.
+     */
+    public void start() {
+        this.isStarted = true;
+        this.thread.start();
+    }
+
+    /**
+     * Returns cleared list logic can record next frame to. Damage of frames
+     * renderer skipped is already in the list.
+     * @param bounds - bounds of the screen.
+     */
+    public RenderList begin(Rectangle bounds) {
+        RenderList list = this.lists[this.back];
+        list.clear(bounds);
+        list.getDamage().add(this.carried);
+        this.carried.clear();
+        list.setInputTime(this.carriedInput, this.carriedRecord);
+        this.carriedInput = 0;
+        return list;
+    }
+
+    /**
+     * Publishes list returned by {@link #begin(Rectangle)}, list can not
+     * be touched after this call.
+     */
+    public void publish() {
+        if (!this.isStarted) {
+            boolean isExposed = this.isExposed;
+            this.isExposed = false;
+            this.render(this.lists[this.back], isExposed);
+            return;
+        }
+
+        int previous = this.shared.getAndSet(this.back | FRESH);
+        this.back = previous & INDEX_MASK;
+        if ((previous & FRESH) != 0) {
+            // renderer never saw this frame, its damage goes to the next one
+            RenderList skipped = this.lists[this.back];
+            this.carried.add(skipped.getDamage());
+            if (skipped.getInputTime() != 0) {
+                this.carriedInput = skipped.getInputTime();
+                this.carriedRecord = skipped.getRecordTime();
+            }
+        }
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Returns how long the last drawn frame took to replay and present, 
+     * in seconds. Can be called from any thread.
+     */
+    public double getRenderTime() {
+        return this.renderNanos / (double)NANOS_IN_SECOND;
+    }
+
+    /**
+     * Makes renderer redraw whole screen, can be called from any thread.
+     */
+    public void expose() {
+        this.isExposed = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    @Override
+    public void run() {
+        boolean hasFrame = false;
+        while (true) {
+            boolean isFresh = this.acquire();
+            hasFrame = hasFrame || isFresh;
+            boolean isExposed = this.isExposed;
+            if (!hasFrame || !(isFresh || isExposed)) {
+                LockSupport.park(this);
+                continue;
+            }
+            if (isExposed) {
+                this.isExposed = false;
+            }
+            this.render(this.lists[this.front], isExposed);
+        }
+    }
+
+    /**
+     * Takes the newest published list if there is one.
+     */
+    private boolean acquire() {
+        if ((this.shared.get() & FRESH) == 0) {
+            return false;
+        }
+        this.front = this.shared.getAndSet(this.front) & INDEX_MASK;
+        return true;
+    }
+
+    private void render(RenderList list, boolean isFull) {
+        Rectangle b = list.getBounds(this.screen);
+        Damage damage = list.getDamage();
+        if (isFull) {
+            damage.addAll();
+        }
+
+        Rectangle clip = damage.getBounds(b, this.clip);
+        if (clip.isEmpty()) {
+            // everything changed outside of the screen
+            return;
+        }
+        for (Damage previous : this.history) {
+            // union with empty rectangle would still stretch the clip to its corner
+            if (!previous.isEmpty()) {
+                clip.add(previous.getBounds(b, this.temp));
+            }
+        }
+
+        Graphics2D g = this.target.getDrawGraphics();
+        if (g == null) {
+            this.isExposed = true;
+            return;
+        }
+        if (this.target.contentsRestored()) {
+            clip.setBounds(b);
+            damage.addAll();
+        }
+        long start = System.nanoTime();
+        g.clip(clip);
+        list.replay(g);
+        g.dispose();
+
+        long inputTime = list.getInputTime();
+        long replayed = inputTime == 0 ? 0 : System.nanoTime();
+        this.target.show();
+        long shown = System.nanoTime();
+        this.renderNanos = shown - start;
+        if (inputTime != 0) {
+            this.latency.record(LatencyTracker.Stage.RENDER, replayed - list.getRecordTime());
+            this.latency.record(LatencyTracker.Stage.PRESENT, shown - replayed);
+            this.latency.record(LatencyTracker.Stage.TOTAL, shown - inputTime);
+        }
+
+        if (this.history.length != 0) {
+            this.history[this.historyHead].set(damage);
+            this.historyHead = (this.historyHead + 1) % this.history.length;
+        }
+
+        if (this.target.contentsLost()) {
+            for (Damage previous : this.history) {
+                previous.addAll();
+            }
+            this.isExposed = true;
+        }
+    }
+}
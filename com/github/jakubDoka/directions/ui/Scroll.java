@@ -1,7 +1,6 @@
 package com.github.jakubDoka.directions.ui;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
@@ -41,7 +40,11 @@ public class Scroll extends CanvasObject {
     }
 
     public void setValue(double value) {
-        this.value = (int)(value * this.bounds.width);
+        int localValue = (int)(value * this.bounds.width);
+        if (localValue != this.value) {
+            this.value = localValue;
+            this.invalidate();
+        }
     }
 
     /**
@@ -59,6 +62,7 @@ public class Scroll extends CanvasObject {
             int localValue = Math.min(Math.max(localMouse.x - this.bounds.x, 0), this.bounds.width); 
             if (localValue != this.value) {
                 this.value = localValue;
+                this.invalidate();
                 return true;
             }
             return false;
@@ -70,7 +74,13 @@ public class Scroll extends CanvasObject {
     }
 
     @Override
-    public void drawImpl(Graphics2D g) {
+    public Rectangle getBounds(Rectangle target) {
+        target.setBounds(this.bounds);
+        return target;
+    }
+
+    @Override
+    public void drawImpl(RenderList g) {
         g.setColor(this.background);
         g.fill(this.bounds);
         g.setColor(this.foreground);
@@ -2,7 +2,6 @@ package com.github.jakubDoka.directions.ui;
 
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.Point;
@@ -18,7 +17,10 @@ public class Selection extends CanvasObject {
     private final Item[] items;
     private final Rectangle bounds;
     private final Rectangle drawer;
-    private final TextHandle text;
+    /**
+     * text of each item, positions never change so layouts stay cached
+     */
+    private final TextHandle[] texts;
 
     private int selected;
 
@@ -33,22 +35,24 @@ public class Selection extends CanvasObject {
         this.items = items;
         this.bounds = bounds;
         this.drawer = new Rectangle();
-        this.text = new TextHandle(font, 0, 0);
-        this.text.setMargin(TextHandle.Margin.CENTER);
+        this.texts = new TextHandle[items.length];
+        for (int i = 0; i < items.length; i++) {
+            this.setBounds(i);
+            this.texts[i] = new TextHandle(font, (int)this.drawer.getCenterX(), (int)this.drawer.getCenterY());
+            this.texts[i].setMargin(TextHandle.Margin.CENTER);
+            this.texts[i].setText(items[i].getText());
+        }
     }
     
     @Override
-    public void drawImpl(Graphics2D g) {
+    public void drawImpl(RenderList g) {
         
         for (int i = 0; i < this.items.length; i++) {
             this.setBounds(i);
             g.setColor(this.items[i].getColor());
             g.fill(this.drawer);
             g.setColor(Color.BLACK);
-            this.text.setText(this.items[i].getText());
-            this.text.setX((int)this.drawer.getCenterX());
-            this.text.setY((int)this.drawer.getCenterY());
-            this.text.drawImpl(g);
+            this.texts[i].drawImpl(g);
         }
     }
 
@@ -68,6 +72,7 @@ public class Selection extends CanvasObject {
         }
 
         this.items[this.selected].select();
+        this.invalidate();
     }
 
     /**
@@ -77,6 +82,7 @@ public class Selection extends CanvasObject {
      */
     public void setColor(int i, Color color) {
         this.items[i].setColor(color);
+        this.invalidate();
     }
 
     /**
@@ -100,6 +106,7 @@ public class Selection extends CanvasObject {
                 this.items[i].select();
 
                 this.selected = i;
+                this.invalidate();
 
                 return i;
             }
@@ -108,6 +115,12 @@ public class Selection extends CanvasObject {
         return -1;
     }
 
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        target.setBounds(this.bounds);
+        return target;
+    }
+
     private void setBounds(int i) {
         final int reminder = this.bounds.width % this.items.length;
         final int step = this.bounds.width / this.items.length;
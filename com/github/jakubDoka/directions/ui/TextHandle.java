@@ -1,17 +1,32 @@
 package com.github.jakubDoka.directions.ui;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.regex.Pattern;
 
 /**
  * TextHandle offers object oriented interface to drawing text.
  * It handles the text margin.
+ * 
+ * Layout of the text, its lines and where they are drawn relative to 
+ * the position, is computed once and kept until text, font or margin 
+ * changes. Thanks to it, handle also knows its bounds.
+ * 
+ * If there is {@link GlyphAtlas} registered for the font and text is 
+ * made only of characters it has, text is drawn from the atlas. None
+ * is registered by default, see {@link GlyphAtlas}.
  */
 public class TextHandle extends CanvasObject {
     /**
      * regex that matches the line ending
      */
     private static final Pattern NLINE_PATTERN = Pattern.compile("(\n\r|\n|\r)");
+    /**
+     * only measures text, same as the one of {@link RenderList}
+     */
+    private static final Graphics2D MEASURE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
 
     private String text;
     private Font font;
@@ -19,6 +34,18 @@ public class TextHandle extends CanvasObject {
     private int y;
     private Margin margin;
 
+    // layout, relative to the position
+    private boolean isLayoutStale;
+    private String[] lines;
+    /**
+     * null if text can not be drawn from atlas
+     */
+    private GlyphAtlas atlas;
+    private int offsetX;
+    private int offsetY;
+    private int lineHeight;
+    private final Rectangle layoutBounds;
+
     /**
      * Creates a new TextHandle instance.
      * 
@@ -32,27 +59,48 @@ public class TextHandle extends CanvasObject {
         this.x = x;
         this.y = y;
         this.margin = Margin.BOTTOM_LEFT;
+        this.isLayoutStale = true;
+        this.layoutBounds = new Rectangle();
     }
     
 
     public void setMargin(Margin margin) {
-        this.margin = margin;
+        if (margin != this.margin) {
+            this.invalidate();
+            this.margin = margin;
+            this.isLayoutStale = true;
+            this.invalidate();
+        }
     }
 
     public void setText(String text) {
-        this.text = text;
+        if (!text.equals(this.text)) {
+            this.invalidate();
+            this.text = text;
+            this.isLayoutStale = true;
+            this.invalidate();
+        }
     }
     
     public void setFont(Font font) {
-        this.font = font;
+        if (!font.equals(this.font)) {
+            this.invalidate();
+            this.font = font;
+            this.isLayoutStale = true;
+            this.invalidate();
+        }
     }
 
     public void setX(int x) {
+        this.invalidate();
         this.x = x;
+        this.invalidate();
     }
     
     public void setY(int y) {
+        this.invalidate();
         this.y = y;
+        this.invalidate();
     }
 
     public String getText() {
@@ -71,33 +119,74 @@ public class TextHandle extends CanvasObject {
         return this.y;
     }
     
+    /**
+     * Bounds are derived from font metrics, so they cover all the glyphs
+     * could draw, not just ones in the text.
+     */
     @Override
-    public void drawImpl(Graphics2D g) {
+    public Rectangle getBounds(Rectangle target) {
+        this.updateLayout();
+        target.setBounds(this.layoutBounds);
+        target.translate(this.x, this.y);
+        return target;
+    }
+
+    @Override
+    public void drawImpl(RenderList g) {
+        this.updateLayout();
         g.setFont(this.font);
-        int localX = 0;
-        int localY = 0;
+        int localX = this.x + this.offsetX;
+        int localY = this.y + this.offsetY;
+        for (int i = 0; i < this.lines.length; i++) {
+            if (this.atlas != null) {
+                g.drawGlyphs(this.atlas, this.lines[i], localX, localY + i * this.lineHeight);
+            } else {
+                g.drawString(this.lines[i], localX, localY + i * this.lineHeight);
+            }
+        }
+    }
+
+    /**
+     * Splits and measures the text if it changed since the last time.
+     */
+    private void updateLayout() {
+        if (!this.isLayoutStale) {
+            return;
+        }
+        this.isLayoutStale = false;
+
+        FontMetrics metrics = MEASURE.getFontMetrics(this.font);
+        this.lines = NLINE_PATTERN.split(this.text);
+        this.lineHeight = metrics.getHeight();
+
+        this.atlas = GlyphAtlas.of(this.font);
+        int width = 0;
+        for (String line : this.lines) {
+            width = Math.max(width, metrics.stringWidth(line));
+            if (this.atlas != null && !this.atlas.canDraw(line)) {
+                this.atlas = null;
+            }
+        }
+
         switch (this.margin) {
             case BOTTOM_LEFT:
-                localX = this.x;
-                localY = this.y;
+                this.offsetX = 0;
+                this.offsetY = 0;
                 break;     
             case CENTER:
-                int width = 0;
-                int lines = 0;
-                for (String line : NLINE_PATTERN.split(this.text)) {
-                    width = Math.max(width, g.getFontMetrics().stringWidth(line));
-                    lines++;
-                }
-                int height = g.getFontMetrics().getHeight() * lines;
-                localX = this.x - width / 2;
-                localY = this.y + height / 2 - g.getFontMetrics().getDescent();
+                int height = this.lineHeight * this.lines.length;
+                this.offsetX = -(width / 2);
+                this.offsetY = height / 2 - metrics.getDescent();
         }
 
-        int currentLine = 0;
-        for (String line : NLINE_PATTERN.split(this.text)) {
-            g.drawString(line, localX, localY + currentLine * g.getFontMetrics().getHeight());
-            currentLine++;
-        }
+        // glyphs can reach bit over their advance, padding takes care of it
+        int padding = Math.max(metrics.getMaxAdvance(), this.font.getSize()) / 2 + 1;
+        this.layoutBounds.setBounds(
+            this.offsetX - padding,
+            this.offsetY - metrics.getMaxAscent() - 1,
+            width + padding * 2,
+            this.lineHeight * (this.lines.length - 1) + metrics.getMaxAscent() + metrics.getMaxDescent() + 2
+        );
     }
 
     /**
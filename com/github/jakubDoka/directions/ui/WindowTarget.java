@@ -0,0 +1,123 @@
+package com.github.jakubDoka.directions.ui;
+
+import javax.swing.JFrame;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferStrategy;
+
+/**
+ * WindowTarget draws frames to a window trough triple buffered
+ * {@link BufferStrategy}. It passes key and mouse input of the window
+ * to the canvas it is attached to. Needs a display.
+ */
+public class WindowTarget implements IRenderTarget {
+    private static final int BUFFERS = 3;
+
+    private final JFrame frame;
+    private final java.awt.Canvas canvas;
+    private volatile Canvas attached;
+
+    /**
+     * Creates and shows the window.
+     * @param title - title of the window.
+     * @param width - width of the drawing area.
+     * @param height - height of the drawing area.
+     */
+    public WindowTarget(String title, int width, int height) {
+        this.frame = new JFrame(title);
+
+        this.canvas = new java.awt.Canvas() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void paint(Graphics g) {
+                WindowTarget.this.expose();
+            }
+
+            @Override
+            public void update(Graphics g) {
+                WindowTarget.this.expose();
+            }
+        };
+        this.canvas.setPreferredSize(new Dimension(width, height));
+        this.canvas.setFocusable(true);
+
+        this.frame.add(this.canvas);
+        this.frame.pack();
+        this.frame.setResizable(false);
+        this.frame.setLocationRelativeTo(null);
+        this.frame.setVisible(true);
+        this.frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    }
+
+    public JFrame getFrame() {
+        return this.frame;
+    }
+
+    @Override
+    public void attach(Canvas canvas) {
+        this.canvas.addKeyListener(canvas);
+        this.canvas.addMouseListener(canvas);
+        this.canvas.addMouseMotionListener(canvas);
+        this.attached = canvas;
+    }
+
+    /**
+     * Called from event thread when window needs repainting.
+     */
+    private void expose() {
+        // window can be painted before it is attached
+        Canvas localAttached = this.attached;
+        if (localAttached != null) {
+            localAttached.expose();
+        }
+    }
+
+    @Override
+    public Rectangle getBounds(Rectangle target) {
+        return this.canvas.getBounds(target);
+    }
+
+    @Override
+    public int getBufferCount() {
+        return BUFFERS;
+    }
+
+    @Override
+    public Graphics2D getDrawGraphics() {
+        BufferStrategy bs = this.canvas.getBufferStrategy();
+        if (bs == null) {
+            this.canvas.createBufferStrategy(BUFFERS);
+            return null;
+        }
+        return (Graphics2D)bs.getDrawGraphics();
+    }
+
+    @Override
+    public boolean contentsRestored() {
+        return this.canvas.getBufferStrategy().contentsRestored();
+    }
+
+    @Override
+    public boolean contentsLost() {
+        return this.canvas.getBufferStrategy().contentsLost();
+    }
+
+    @Override
+    public void show() {
+        this.canvas.getBufferStrategy().show();
+    }
+
+    @Override
+    public boolean isFocused() {
+        return this.frame.isFocused();
+    }
+
+    @Override
+    public boolean isMinimized() {
+        return (this.frame.getExtendedState() & JFrame.ICONIFIED) != 0;
+    }
+}
@@ -1,7 +1,29 @@
 package tests;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import github.com.jakubDoka.directions.game.Util;
+import com.github.jakubDoka.directions.game.AxisIndex;
+import com.github.jakubDoka.directions.game.CoordinateIndex;
+import com.github.jakubDoka.directions.game.Path;
+import com.github.jakubDoka.directions.game.PathLookahead;
+import com.github.jakubDoka.directions.game.ScoreScreen;
+import com.github.jakubDoka.directions.game.StepEngine;
+import com.github.jakubDoka.directions.game.Util;
+import com.github.jakubDoka.directions.ui.Canvas;
+import com.github.jakubDoka.directions.ui.CanvasObject;
+import com.github.jakubDoka.directions.ui.GlyphAtlas;
+import com.github.jakubDoka.directions.ui.ImageTarget;
+import com.github.jakubDoka.directions.ui.Panel;
+import com.github.jakubDoka.directions.ui.RenderList;
+import com.github.jakubDoka.directions.ui.TextHandle;
+import com.github.jakubDoka.directions.ui.Vec;
+import com.github.jakubDoka.directions.ui.IRenderTarget;
+import com.github.jakubDoka.directions.ui.LatencyHistogram;
+import com.github.jakubDoka.directions.ui.LatencyTracker;
+import com.github.jakubDoka.directions.ui.Renderer;
 
 /**
  * Unit test class.
@@ -13,6 +35,19 @@ public class Tests {
      */
     public static void main(String[] args) {
         Tests.sortTest();
+        Tests.primitiveSortTest();
+        Tests.parallelSortTest();
+        Tests.adaptiveSortTest();
+        Tests.quantizedSortTest();
+        Tests.coordinateIndexTest();
+        Tests.stepEngineTest();
+        Tests.lookaheadTest();
+        Tests.latencyHistogramTest();
+        Tests.skippedFrameLatencyTest();
+        Tests.headlessRenderTest();
+        Tests.textBoundsTest();
+        Tests.glyphAtlasTest();
+        Tests.sceneGraphTest();
     }
 
 
@@ -40,6 +75,554 @@ public class Tests {
         }
     }
 
+    private static void primitiveSortTest() {
+        Random rand = new Random();
+        Util.Sorter sorter = new Util.Sorter();
+
+        for (int i = 0; i < 1000; i++) {
+            // lengths vary so that reused buffers are bigger then the input
+            final int length = 1 + rand.nextInt(1000);
+
+            double[] doubles = new double[length];
+            int[] ints = new int[length];
+            int[] indices = new int[length];
+            for (int j = 0; j < length; j++) {
+                doubles[j] = rand.nextInt(100);
+                ints[j] = rand.nextInt(10000) - 5000;
+                indices[j] = j;
+            }
+
+            sorter.sortIndices(doubles, indices, length);
+            sorter.sort(doubles.clone(), length);
+            sorter.sort(ints, length);
+
+            for (int j = 1; j < length; j++) {
+                Tests.doAssert(ints[j - 1] <= ints[j], "%d <= %d", ints[j - 1], ints[j]);
+                double a = doubles[indices[j - 1]];
+                double b = doubles[indices[j]];
+                Tests.doAssert(a <= b, "%f <= %f", a, b);
+                // equal keys have to keep the order
+                Tests.doAssert(a != b || indices[j - 1] < indices[j], "stable at %d", j);
+            }
+
+            Util.sort(doubles);
+            for (int j = 1; j < length; j++) {
+                Tests.doAssert(doubles[j - 1] <= doubles[j], "%f <= %f", doubles[j - 1], doubles[j]);
+            }
+        }
+    }
+
+    private static void parallelSortTest() {
+        Random rand = new Random();
+
+        for (int i = 0; i < 200; i++) {
+            final int length = rand.nextInt(20000);
+            // small cutoff so that even short arrays get split to tasks
+            final int cutoff = 32 + rand.nextInt(2000);
+
+            // key and original position, position tells if sort was stable
+            int[][] array = new int[length][];
+            for (int j = 0; j < length; j++) {
+                array[j] = new int[] {rand.nextInt(100), j};
+            }
+            int[][] expected = array.clone();
+
+            Util.sort(expected, (a, b) -> a[0] > b[0]);
+            Util.parallelSort(array, (a, b) -> a[0] > b[0], cutoff);
+            for (int j = 0; j < length; j++) {
+                Tests.doAssert(array[j] == expected[j], "%d: %d != %d", j, array[j][1], expected[j][1]);
+            }
+        }
+    }
+
+    private static void adaptiveSortTest() {
+        Random rand = new Random();
+        Util.Sorter sorter = new Util.Sorter();
+
+        for (int i = 0; i < 1000; i++) {
+            final int length = rand.nextInt(2000);
+            // shape 0 is random, 1 ascending, 2 descending and 3 has few random swaps,
+            // runs are made of equal keys as well so that reversing is tested for stability
+            final int shape = rand.nextInt(4);
+
+            int[][] array = new int[length][];
+            double[] doubles = new double[length];
+            for (int j = 0; j < length; j++) {
+                int key;
+                switch (shape) {
+                    case 1:
+                    case 3:
+                        key = j / 4;
+                        break;
+                    case 2:
+                        key = (length - j) / 4;
+                        break;
+                    default:
+                        key = rand.nextInt(100);
+                }
+                array[j] = new int[] {key, j};
+            }
+            for (int j = 0; shape == 3 && j < length / 50; j++) {
+                int a = rand.nextInt(length);
+                int b = rand.nextInt(length);
+                int[] swap = array[a];
+                array[a] = array[b];
+                array[b] = swap;
+            }
+            for (int j = 0; j < length; j++) {
+                doubles[j] = array[j][0];
+            }
+            int[][] expected = array.clone();
+
+            Util.sort(expected, (a, b) -> a[0] > b[0]);
+            sorter.sortAdaptive(array, (a, b) -> a[0] > b[0]);
+            sorter.sortAdaptive(doubles, length);
+            for (int j = 0; j < length; j++) {
+                Tests.doAssert(array[j] == expected[j], "%d: %d != %d", j, array[j][1], expected[j][1]);
+                Tests.doAssert(doubles[j] == expected[j][0], "%d: %f != %d", j, doubles[j], expected[j][0]);
+            }
+        }
+    }
+
+    private static void quantizedSortTest() {
+        Random rand = new Random();
+        Util.Sorter sorter = new Util.Sorter();
+        // sorter compares radix result with comparison sort on its own
+        sorter.setVerify(true);
+        final double[] quanta = {1, 4, 10, 0.5};
+
+        for (int i = 0; i < 1000; i++) {
+            final int length = rand.nextInt(2000);
+            final double quantum = quanta[rand.nextInt(quanta.length)];
+            // wide range needs all four passes
+            final int range = rand.nextBoolean() ? 100 : Integer.MAX_VALUE / 2;
+
+            double[] array = new double[length];
+            for (int j = 0; j < length; j++) {
+                array[j] = (rand.nextInt(range) - range / 2) * quantum;
+            }
+            Tests.doAssert(sorter.sortQuantized(array, length, quantum), "quantized input");
+
+            if (length < 2) {
+                continue;
+            }
+            array[rand.nextInt(length)] += quantum / 3;
+            Tests.doAssert(!sorter.sortQuantized(array, length, quantum), "not quantized input");
+            for (int j = 1; j < length; j++) {
+                Tests.doAssert(array[j - 1] <= array[j], "%f <= %f", array[j - 1], array[j]);
+            }
+        }
+    }
+
+    private static void coordinateIndexTest() {
+        Random rand = new Random();
+        final int capacity = 300;
+
+        for (int i = 0; i < 100; i++) {
+            double[] values = new double[capacity];
+            for (int j = 0; j < capacity; j++) {
+                // few distinct values so duplicates are common
+                values[j] = rand.nextInt(100);
+            }
+            CoordinateIndex index = new CoordinateIndex(capacity, 4);
+            index.set(values, capacity);
+
+            for (int j = 0; j < 1000; j++) {
+                int k = rand.nextInt(capacity);
+                double next = rand.nextInt(100);
+                Tests.doAssert(index.remove(values[k]), "%f is missing", values[k]);
+                Tests.doAssert(!index.remove(-1), "removed value never added");
+                index.add(next);
+                values[k] = next;
+            }
+
+            double[] expected = values.clone();
+            java.util.Arrays.sort(expected);
+            Tests.doAssert(index.size() == capacity, "size %d", index.size());
+            for (int j = 0; j < capacity; j++) {
+                Tests.doAssert(index.get(j) == expected[j], "%d: %f != %f", j, index.get(j), expected[j]);
+            }
+            Tests.doAssert(index.first() == expected[0] && index.last() == expected[capacity - 1], "extremes");
+        }
+    }
+
+    private static void stepEngineTest() {
+        /*
+            Both engines get the same random coordinates and have to pick
+            a step that keeps new segment at least size * 2 away from all 
+            of them. Dense cases fill whole grid window so it has to search
+            past it.
+        */
+        Random rand = new Random();
+        final int size = 4;
+
+        for (int i = 0; i < 2000; i++) {
+            boolean isDense = i % 4 == 0;
+            int count = isDense ? 81 : 1 + rand.nextInt(200);
+            int spread = isDense ? 0 : 1 + rand.nextInt(100);
+            double[] values = new double[count];
+            for (int j = 0; j < count; j++) {
+                // dense values occupy every cell from -40 to 40
+                int cell = isDense ? j - 40 : rand.nextInt(spread * 2 + 1) - spread;
+                values[j] = cell * size + (isDense ? 0 : rand.nextInt(size));
+            }
+            double current = values[isDense ? 40 : 0];
+
+            for (StepEngine engine : StepEngine.values()) {
+                AxisIndex index = engine.create(count, size);
+                index.set(values, count);
+                double step = index.findStep(current, size, rand);
+                double chosen = current + step;
+                for (double value : values) {
+                    Tests.doAssert(
+                        Math.abs(value - chosen) >= size * 2, 
+                        "%s chose %f too close to %f", engine, chosen, value
+                    );
+                }
+            }
+        }
+    }
+
+    private static void lookaheadTest() {
+        final long seed = 42;
+        final int steps = 2000;
+        final int stalledSteps = 300;
+        final int length = 50;
+        final int size = 4;
+
+        Path expected = new Path(length, size, 0, 0);
+        expected.setSeed(seed);
+        for (int i = 0; i < steps; i++) {
+            expected.expand();
+        }
+
+        Path actual = new Path(length, size, 0, 0);
+        actual.setSeed(seed);
+        // producer is never started, so every step falls back to synchronous one
+        PathLookahead stalled = new PathLookahead(actual, 8);
+        for (int i = 0; i < stalledSteps; i++) {
+            stalled.next(actual);
+        }
+        Tests.doAssert(stalled.getStalls() == stalledSteps, "%d stalls", stalled.getStalls());
+        actual.startLookahead(8);
+        for (int i = stalledSteps; i < steps; i++) {
+            actual.expand();
+        }
+        Tests.assertSamePath(expected, actual);
+
+        actual.stopLookahead();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            Tests.doAssert(!thread.getName().equals("path-lookahead"), "lookahead still running");
+        }
+
+        // stopped producer must not touch the random generator anymore
+        expected.setSeed(seed + 1);
+        actual.setSeed(seed + 1);
+        for (int i = 0; i < steps; i++) {
+            expected.expand();
+            actual.expand();
+        }
+        Tests.assertSamePath(expected, actual);
+    }
+
+    private static void assertSamePath(Path expected, Path actual) {
+        Path.Segment a = new Path.Segment();
+        Path.Segment b = new Path.Segment();
+        Vec posA = new Vec();
+        Vec posB = new Vec();
+        for (int i = 0; i < expected.getLength(); i++) {
+            expected.getSegment(i, a).getPos(posA);
+            actual.getSegment(i, b).getPos(posB);
+            Tests.doAssert(
+                posA.getX() == posB.getX() && posA.getY() == posB.getY() && a.getDirection() == b.getDirection(),
+                "segment %d differs", i
+            );
+        }
+    }
+
+    private static void latencyHistogramTest() {
+        Random rand = new Random();
+        final int window = 500;
+        LatencyHistogram histogram = new LatencyHistogram("test", window);
+        long[] samples = new long[2000];
+
+        for (int i = 0; i < samples.length; i++) {
+            // spans from microseconds to seconds
+            samples[i] = (long)Math.pow(10, 3 + rand.nextDouble() * 6);
+            histogram.record(samples[i]);
+        }
+        // only the last window of samples is remembered
+        long[] last = java.util.Arrays.copyOfRange(samples, samples.length - window, samples.length);
+        java.util.Arrays.sort(last);
+        Tests.doAssert(histogram.getCount() == window, "%d == %d", histogram.getCount(), window);
+        Tests.doAssert(histogram.getMax() == last[window - 1], "%d == %d", histogram.getMax(), last[window - 1]);
+
+        for (double fraction : new double[] {0.1, 0.5, 0.9, 0.99, 1}) {
+            long exact = last[(int)Math.ceil(fraction * window) - 1];
+            long value = histogram.getPercentile(fraction);
+            // value is the end of the bucket, bucket is at most quarter of its value wide
+            Tests.doAssert(value >= exact && value <= exact + exact / 4 + 1000, "%d ~ %d", value, exact);
+        }
+    }
+
+    private static void skippedFrameLatencyTest() {
+        System.setProperty("java.awt.headless", "true");
+        final Rectangle bounds = new Rectangle(0, 0, 10, 10);
+        final java.util.concurrent.Semaphore drawing = new java.util.concurrent.Semaphore(0);
+        final java.util.concurrent.Semaphore release = new java.util.concurrent.Semaphore(0);
+
+        // holds the render thread in the first frame so the next ones are skipped
+        ImageTarget image = new ImageTarget(bounds.width, bounds.height);
+        IRenderTarget target = new IRenderTarget() {
+            private boolean isFirst = true;
+
+            public void attach(Canvas canvas) {}
+            public Rectangle getBounds(Rectangle t) { return image.getBounds(t); }
+            public int getBufferCount() { return 1; }
+            public boolean contentsRestored() { return false; }
+            public boolean contentsLost() { return false; }
+            public void show() {}
+            public boolean isFocused() { return true; }
+            public boolean isMinimized() { return false; }
+
+            public java.awt.Graphics2D getDrawGraphics() {
+                if (this.isFirst) {
+                    this.isFirst = false;
+                    drawing.release();
+                    release.acquireUninterruptibly();
+                }
+                return image.getDrawGraphics();
+            }
+        };
+
+        LatencyTracker latency = new LatencyTracker();
+        Renderer renderer = new Renderer(target, latency);
+        renderer.start();
+
+        RenderList list = renderer.begin(bounds);
+        list.getDamage().addAll();
+        renderer.publish();
+        drawing.acquireUninterruptibly();
+
+        // frame with input is published and skipped by the next one
+        long now = System.nanoTime();
+        list = renderer.begin(bounds);
+        list.getDamage().addAll();
+        list.setInputTime(now - 1000, now);
+        renderer.publish();
+        list = renderer.begin(bounds);
+        renderer.publish();
+        list = renderer.begin(bounds);
+        renderer.publish();
+        release.release();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (latency.get(LatencyTracker.Stage.TOTAL).getCount() == 0) {
+            Tests.doAssert(System.nanoTime() < deadline, "skipped input never presented");
+            Thread.yield();
+        }
+        for (LatencyTracker.Stage stage : new LatencyTracker.Stage[] {
+            LatencyTracker.Stage.RENDER, LatencyTracker.Stage.PRESENT, LatencyTracker.Stage.TOTAL,
+        }) {
+            LatencyHistogram histogram = latency.get(stage);
+            Tests.doAssert(histogram.getCount() == 1, "%s has %d samples", stage, histogram.getCount());
+            Tests.doAssert(histogram.getMax() < 1_000_000_000L, "%s took %d ns", stage, histogram.getMax());
+        }
+    }
+
+    private static void headlessRenderTest() {
+        System.setProperty("java.awt.headless", "true");
+        final int size = 600;
+
+        ScoreScreen screen = new ScoreScreen();
+        screen.start(1234, 5678);
+        ImageTarget target = new ImageTarget(size, size);
+        Canvas canvas = new Canvas(target, false);
+        canvas.setBackground(Color.WHITE);
+        canvas.addObject(screen);
+        canvas.redraw();
+        // cached layer has to notice the change
+        screen.start(4321, 8765);
+        canvas.redraw();
+
+        // the same frame drawn directly, without canvas and cache
+        screen.setCached(false);
+        BufferedImage expected = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = expected.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, size, size);
+        RenderList list = new RenderList();
+        list.clear(new Rectangle(0, 0, size, size));
+        screen.draw(list, new Rectangle(0, 0, size, size));
+        list.replay(g);
+        g.dispose();
+
+        BufferedImage image = target.getImage();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Tests.doAssert(image.getRGB(x, y) == expected.getRGB(x, y), "pixel %d %d", x, y);
+            }
+        }
+    }
+
+    private static void textBoundsTest() {
+        System.setProperty("java.awt.headless", "true");
+        final int size = 400;
+        final Font[] fonts = {
+            new Font("Monospaced", Font.BOLD, 15), 
+            new Font("Monospaced", Font.BOLD, 30), 
+            new Font("Serif", Font.ITALIC, 40),
+        };
+        final String[] texts = {"", "W", "gjpqy", "EXIT", "line\nlonger line\nWQ|"};
+        Rectangle bounds = new Rectangle();
+
+        for (Font font : fonts) {
+            for (String text : texts) {
+                for (TextHandle.Margin margin : TextHandle.Margin.values()) {
+                    TextHandle handle = new TextHandle(font, size / 2, size / 2);
+                    handle.setMargin(margin);
+                    handle.setText(text);
+
+                    BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+                    java.awt.Graphics2D g = image.createGraphics();
+                    RenderList list = new RenderList();
+                    list.clear(new Rectangle(0, 0, size, size));
+                    handle.draw(list, new Rectangle(0, 0, size, size));
+                    list.replay(g);
+                    g.dispose();
+
+                    handle.getBounds(bounds);
+                    for (int y = 0; y < size; y++) {
+                        for (int x = 0; x < size; x++) {
+                            Tests.doAssert(
+                                image.getRGB(x, y) == 0 || bounds.contains(x, y), 
+                                "'%s' drawn at %d %d outside of %s", text, x, y, bounds
+                            );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void glyphAtlasTest() {
+        System.setProperty("java.awt.headless", "true");
+        final Rectangle bounds = new Rectangle(0, 0, 500, 100);
+        final Font[] fonts = {
+            new Font("Monospaced", Font.BOLD, 30), 
+            new Font("Serif", Font.ITALIC, 40),
+        };
+        final String[] texts = {"0123456789", "Hello, World! ~{}|", "AV To"};
+        final Color[] colors = {Color.BLACK, new Color(200, 30, 30, 120)};
+
+        for (Font font : fonts) {
+            GlyphAtlas atlas = new GlyphAtlas(font);
+            for (String text : texts) {
+                for (Color color : colors) {
+                    // atlas has to look exactly the same as the text pipeline
+                    BufferedImage[] images = new BufferedImage[2];
+                    for (int i = 0; i < images.length; i++) {
+                        images[i] = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+                        java.awt.Graphics2D g = images[i].createGraphics();
+                        RenderList list = new RenderList();
+                        list.clear(bounds);
+                        list.setColor(Color.WHITE);
+                        list.fill(bounds);
+                        list.setFont(font);
+                        list.setColor(color);
+                        if (i == 0) {
+                            list.drawString(text, 13, 60);
+                        } else {
+                            list.drawGlyphs(atlas, text, 13, 60);
+                        }
+                        list.replay(g);
+                        g.dispose();
+                    }
+
+                    for (int y = 0; y < bounds.height; y++) {
+                        for (int x = 0; x < bounds.width; x++) {
+                            Tests.doAssert(
+                                images[0].getRGB(x, y) == images[1].getRGB(x, y), 
+                                "'%s' differs at %d %d", text, x, y
+                            );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void sceneGraphTest() {
+        System.setProperty("java.awt.headless", "true");
+        final int[] draws = new int[2];
+
+        ImageTarget target = new ImageTarget(100, 100);
+        Canvas canvas = new Canvas(target, false);
+        canvas.setBackground(Color.WHITE);
+        Panel red = new Panel(new Rectangle(0, 0, 50, 50), Color.RED);
+        Panel blue = new Panel(new Rectangle(25, 25, 50, 50), Color.BLUE);
+        red.setZ(1);
+        canvas.addObject(red);
+        canvas.addObject(blue);
+
+        // counts how many times it is drawn
+        CanvasObject counter = new CanvasObject() {
+            @Override
+            public void drawImpl(RenderList g) {
+                draws[0]++;
+            }
+        };
+        blue.addItem(counter);
+        // out of the screen, has to be culled
+        Panel outside = new Panel(new Rectangle(200, 200, 10, 10), Color.BLACK);
+        outside.addItem(new CanvasObject() {
+            @Override
+            public void drawImpl(RenderList g) {
+                draws[1]++;
+            }
+
+            @Override
+            public Rectangle getBounds(Rectangle target) {
+                target.setBounds(205, 205, 10, 10);
+                return target;
+            }
+        });
+        canvas.addObject(outside);
+
+        canvas.redraw();
+        Tests.doAssert(target.getImage().getRGB(30, 30) == Color.RED.getRGB(), "higher z on top");
+        Tests.doAssert(draws[0] == 1 && draws[1] == 0, "draws %d %d", draws[0], draws[1]);
+
+        blue.setZ(2);
+        canvas.redraw();
+        Tests.doAssert(target.getImage().getRGB(30, 30) == Color.BLUE.getRGB(), "reordered");
+
+        // hidden subtree reports no damage, so nothing is redrawn
+        blue.setVisible(false);
+        canvas.redraw();
+        int before = draws[0];
+        counter.invalidate();
+        canvas.redraw();
+        Tests.doAssert(draws[0] == before, "hidden subtree drawn");
+        Tests.doAssert(target.getImage().getRGB(30, 30) == Color.RED.getRGB(), "hidden panel erased");
+
+        blue.setVisible(true);
+        canvas.removeObject(red);
+        canvas.redraw();
+        Tests.doAssert(target.getImage().getRGB(10, 10) == Color.WHITE.getRGB(), "removed panel erased");
+        Tests.doAssert(target.getImage().getRGB(30, 30) == Color.BLUE.getRGB(), "shown again");
+        Tests.doAssert(draws[1] == 0, "culled subtree drawn");
+
+        // removing what was never added is a no-op, settings rely on it
+        blue.removeItem(null);
+        blue.removeItem(red);
+        before = draws[0];
+        counter.invalidate();
+        canvas.redraw();
+        Tests.doAssert(draws[0] == before + 1, "child lost by removing other item");
+        Tests.doAssert(target.getImage().getRGB(30, 30) == Color.BLUE.getRGB(), "panel lost by removing other item");
+    }
+
     private static void doAssert(boolean condition, String message, Object... args) {
         if (!condition) {
             throw new RuntimeException("assertion failed: " + String.format(message, args));